@@ -0,0 +1,75 @@
+package travel.ferries2.springdata.ignite.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class LatencyReport {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<LoadOperation, Histogram> histograms = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> rejections = new EnumMap<>(LoadOperation.class);
+
+    LatencyReport() {
+        for (LoadOperation operation : LoadOperation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+            errors.put(operation, new LongAdder());
+            rejections.put(operation, new LongAdder());
+        }
+    }
+
+    void record(LoadOperation operation, long nanos) {
+        histograms.get(operation).recordValue(Math.min(nanos, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    void recordError(LoadOperation operation) {
+        errors.get(operation).increment();
+    }
+
+    void recordRejection(LoadOperation operation) {
+        rejections.get(operation).increment();
+    }
+
+    long totalErrors() {
+        return sum(errors);
+    }
+
+    void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%-28s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+                "operation", "count", "ops/s", "p50(us)", "p99(us)", "p999(us)", "max(us)", "rejected", "errors");
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        histograms.forEach((operation, histogram) -> {
+            total.add(histogram);
+            print(out, operation.name(), histogram, rejections.get(operation).sum(), errors.get(operation).sum(), seconds);
+        });
+        print(out, "TOTAL", total, sum(rejections), totalErrors(), seconds);
+    }
+
+    private static void print(PrintStream out, String name, Histogram histogram, long rejections, long errors, double seconds) {
+        out.printf("%-28s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %8d %8d%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                micros(histogram.getValueAtPercentile(50.0)),
+                micros(histogram.getValueAtPercentile(99.0)),
+                micros(histogram.getValueAtPercentile(99.9)),
+                micros(histogram.getMaxValue()),
+                rejections,
+                errors);
+    }
+
+    private static long sum(Map<LoadOperation, LongAdder> counters) {
+        return counters.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+}
@@ -0,0 +1,28 @@
+package travel.ferries2.springdata.ignite.load;
+
+import lombok.Builder;
+import lombok.Data;
+import org.apache.ignite.cache.query.annotations.QuerySqlField;
+import org.springframework.data.annotation.Id;
+import travel.ferries2.springdata.ignite.Unique;
+import travel.ferries2.springdata.ignite.UniqueComposite;
+
+@Data
+@Builder(toBuilder = true)
+class LoadEntity {
+    @Id
+    @QuerySqlField(index = true)
+    private final String id;
+    @Unique
+    @QuerySqlField(index = true)
+    private final String code;
+    @UniqueComposite(keyName = "departure")
+    @QuerySqlField(index = true, groups = "departure")
+    private final String route;
+    @UniqueComposite(keyName = "departure")
+    @QuerySqlField(index = true, groups = "departure")
+    private final String departure;
+    @QuerySqlField
+    private final Long revision;
+    private final String payload;
+}
@@ -0,0 +1,152 @@
+package travel.ferries2.springdata.ignite.load;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.repository.core.support.ReflectionEntityInformation;
+import travel.ferries2.springdata.ignite.ExtendedIgniteRepository;
+import travel.ferries2.springdata.ignite.ExtendedIgniteRepositoryImplementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Drives a configurable operation mix against repositories backed by a 2-4 node in-JVM cluster, prints latency
+ * percentiles and throughput per operation and fails when unique keys end up duplicated.
+ *
+ * <p>Run with {@code gradle loadTest}; see {@link LoadSettings} for the {@code load.*} properties.
+ */
+public class LoadHarness {
+    private static final String CACHE_NAME = "load-entities";
+
+    private final LoadSettings settings;
+    private final LoadWorkload workload;
+    private final int[] cumulativeWeights;
+    private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+    private volatile LatencyReport report = new LatencyReport();
+
+    private LoadHarness(LoadSettings settings) {
+        this.settings = settings;
+        this.workload = new LoadWorkload(settings);
+        this.cumulativeWeights = new int[LoadOperation.values().length];
+        int sum = 0;
+        for (LoadOperation operation : LoadOperation.values()) {
+            sum += settings.getMix().getOrDefault(operation, 0);
+            cumulativeWeights[operation.ordinal()] = sum;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        System.out.println("Load settings: " + settings);
+
+        List<Ignite> nodes = new ArrayList<>();
+        boolean passed;
+        try {
+            for (int i = 0; i < settings.getNodes(); i++) {
+                nodes.add(Ignition.start(nodeConfiguration(i)));
+            }
+            passed = new LoadHarness(settings).run(nodes);
+        } finally {
+            nodes.forEach(Ignite::close);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private boolean run(List<Ignite> nodes) throws InterruptedException {
+        List<ExtendedIgniteRepository<LoadEntity, String>> repositories = nodes.stream()
+                .map(node -> node.<String, LoadEntity>cache(CACHE_NAME))
+                .map(cache -> new ExtendedIgniteRepositoryImplementation<>(cache, new ReflectionEntityInformation<LoadEntity, String>(LoadEntity.class)))
+                .collect(toList());
+
+        drive(repositories, settings.getWarmupSeconds());
+        report = new LatencyReport();
+        firstError.set(null);
+        long start = System.nanoTime();
+        drive(repositories, settings.getDurationSeconds());
+        long elapsed = System.nanoTime() - start;
+
+        report.print(System.out, elapsed);
+        if (firstError.get() != null) {
+            System.out.println("First error:");
+            firstError.get().printStackTrace(System.out);
+        }
+
+        IgniteCache<String, LoadEntity> cache = nodes.get(0).cache(CACHE_NAME);
+        List<List<?>> duplicates = UniquenessVerifier.findDuplicates(cache, LoadEntity.class);
+        System.out.println("Entities stored: " + cache.size());
+        if (!duplicates.isEmpty()) {
+            System.out.println("Duplicated unique keys: " + duplicates);
+            return false;
+        }
+        System.out.println("No duplicated unique keys");
+        return report.totalErrors() == 0;
+    }
+
+    private void drive(List<ExtendedIgniteRepository<LoadEntity, String>> repositories, int seconds) throws InterruptedException {
+        if (seconds <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(settings.getThreads());
+        ExecutorService executor = Executors.newFixedThreadPool(settings.getThreads());
+        for (int i = 0; i < settings.getThreads(); i++) {
+            ExtendedIgniteRepository<LoadEntity, String> repository = repositories.get(i % repositories.size());
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        execute(repository, LoadOperation.pick(cumulativeWeights));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdown();
+    }
+
+    private void execute(ExtendedIgniteRepository<LoadEntity, String> repository, LoadOperation operation) {
+        LatencyReport current = report;
+        long start = System.nanoTime();
+        try {
+            operation.execute(repository, workload);
+            current.record(operation, System.nanoTime() - start);
+        } catch (DataIntegrityViolationException e) {
+            // the unique key is stored under another id: the expected answer, not a failure
+            current.record(operation, System.nanoTime() - start);
+            current.recordRejection(operation);
+        } catch (RuntimeException e) {
+            current.recordError(operation);
+            firstError.compareAndSet(null, e);
+        }
+    }
+
+    private static IgniteConfiguration nodeConfiguration(int index) {
+        return new IgniteConfiguration()
+                .setIgniteInstanceName("load-node-" + index)
+                .setLocalHost("127.0.0.1")
+                .setDiscoverySpi(new TcpDiscoverySpi()
+                        .setIpFinder(new TcpDiscoveryVmIpFinder()
+                                .setAddresses(List.of("127.0.0.1:47500..47509"))))
+                .setCacheConfiguration(new CacheConfiguration<String, LoadEntity>(CACHE_NAME)
+                        .setAtomicityMode(CacheAtomicityMode.ATOMIC)
+                        .setBackups(1)
+                        .setIndexedTypes(String.class, LoadEntity.class));
+    }
+}
@@ -0,0 +1,70 @@
+package travel.ferries2.springdata.ignite.load;
+
+import org.springframework.data.domain.Pageable;
+import travel.ferries2.springdata.ignite.ExtendedIgniteRepository;
+import travel.ferries2.springdata.ignite.IgniteSqlQuery;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.tuple.Pair.of;
+
+enum LoadOperation {
+    SAVE {
+        @Override
+        void execute(ExtendedIgniteRepository<LoadEntity, String> repository, LoadWorkload workload) {
+            repository.save(workload.entity(workload.randomSlot()));
+        }
+    },
+    SAVE_NEW_ID {
+        @Override
+        void execute(ExtendedIgniteRepository<LoadEntity, String> repository, LoadWorkload workload) {
+            repository.save(workload.entityWithNewId(workload.randomSlot()));
+        }
+    },
+    SAVE_ALL {
+        @Override
+        void execute(ExtendedIgniteRepository<LoadEntity, String> repository, LoadWorkload workload) {
+            repository.saveAll(workload.randomDistinctSlots().stream()
+                    .map(workload::entity)
+                    .collect(Collectors.toUnmodifiableList()));
+        }
+    },
+    QUERY {
+        @Override
+        void execute(ExtendedIgniteRepository<LoadEntity, String> repository, LoadWorkload workload) {
+            repository.query(IgniteSqlQuery.<LoadEntity>builder()
+                    .clazz(LoadEntity.class)
+                    .like(List.of(of("route", workload.route(workload.randomSlot()))))
+                    .pageable(Pageable.unpaged())
+                    .build());
+        }
+    },
+    FIND_BY_UNIQUE_IDENTIFIERS {
+        @Override
+        void execute(ExtendedIgniteRepository<LoadEntity, String> repository, LoadWorkload workload) {
+            repository.findByUniqueIdentifiers(workload.entity(workload.randomSlot()).toBuilder()
+                    .id(null)
+                    .build());
+        }
+    },
+    DELETE {
+        @Override
+        void execute(ExtendedIgniteRepository<LoadEntity, String> repository, LoadWorkload workload) {
+            repository.delete(workload.entity(workload.randomSlot()));
+        }
+    };
+
+    abstract void execute(ExtendedIgniteRepository<LoadEntity, String> repository, LoadWorkload workload);
+
+    static LoadOperation pick(int[] cumulativeWeights) {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return values()[i];
+            }
+        }
+        throw new IllegalStateException("Unreachable weight " + value);
+    }
+}
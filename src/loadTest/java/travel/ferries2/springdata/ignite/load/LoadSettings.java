@@ -0,0 +1,70 @@
+package travel.ferries2.springdata.ignite.load;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Harness settings, read from {@code load.*} system properties (e.g. {@code gradle loadTest -Dload.threads=32}).
+ */
+@Value
+@Builder
+class LoadSettings {
+    private static final String DEFAULT_MIX = "SAVE=30,SAVE_NEW_ID=10,SAVE_ALL=10,QUERY=25,FIND_BY_UNIQUE_IDENTIFIERS=20,DELETE=5";
+
+    int nodes;
+    int threads;
+    int warmupSeconds;
+    int durationSeconds;
+    int keySpace;
+    int routes;
+    int batchSize;
+    Map<LoadOperation, Integer> mix;
+
+    static LoadSettings fromSystemProperties() {
+        LoadSettings settings = LoadSettings.builder()
+                .nodes(Integer.getInteger("load.nodes", 3))
+                .threads(Integer.getInteger("load.threads", 16))
+                .warmupSeconds(Integer.getInteger("load.warmupSeconds", 10))
+                .durationSeconds(Integer.getInteger("load.durationSeconds", 60))
+                .keySpace(Integer.getInteger("load.keySpace", 10_000))
+                .routes(Integer.getInteger("load.routes", 100))
+                .batchSize(Integer.getInteger("load.batchSize", 50))
+                .mix(parseMix(System.getProperty("load.mix", DEFAULT_MIX)))
+                .build();
+        settings.validate();
+        return settings;
+    }
+
+    private void validate() {
+        if (nodes < 2 || nodes > 4) {
+            throw new IllegalArgumentException("load.nodes must be between 2 and 4, was " + nodes);
+        }
+        if (threads < 1 || keySpace < 1 || routes < 1 || durationSeconds < 1) {
+            throw new IllegalArgumentException("load.threads, load.keySpace, load.routes and load.durationSeconds must be positive");
+        }
+        if (batchSize < 1 || batchSize > keySpace) {
+            throw new IllegalArgumentException("load.batchSize must be between 1 and load.keySpace, was " + batchSize);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("load.mix must have at least one positive weight");
+        }
+    }
+
+    private static Map<LoadOperation, Integer> parseMix(String mix) {
+        return Arrays.stream(mix.split(","))
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty())
+                .map(entry -> entry.split("="))
+                .collect(toMap(
+                        entry -> LoadOperation.valueOf(entry[0].trim().toUpperCase()),
+                        entry -> Integer.parseInt(entry[1].trim()),
+                        Integer::sum,
+                        () -> new EnumMap<>(LoadOperation.class)));
+    }
+}
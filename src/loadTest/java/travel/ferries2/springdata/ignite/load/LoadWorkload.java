@@ -0,0 +1,51 @@
+package travel.ferries2.springdata.ignite.load;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Maps slots of the key space to entities. A slot always yields the same {@code @Unique} code and
+ * {@code @UniqueComposite} departure, either under its own id or, through {@link #entityWithNewId(int)}, under a
+ * fresh one, so the repository has to resolve concurrent writes of the same unique keys under different ids.
+ */
+@RequiredArgsConstructor
+class LoadWorkload {
+    private final LoadSettings settings;
+
+    int randomSlot() {
+        return ThreadLocalRandom.current().nextInt(settings.getKeySpace());
+    }
+
+    Set<Integer> randomDistinctSlots() {
+        return ThreadLocalRandom.current().ints(0, settings.getKeySpace())
+                .distinct()
+                .limit(settings.getBatchSize())
+                .boxed()
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    String route(int slot) {
+        return "route-" + slot % settings.getRoutes();
+    }
+
+    LoadEntity entity(int slot) {
+        return LoadEntity.builder()
+                .id("slot-" + slot)
+                .code("code-" + slot)
+                .route(route(slot))
+                .departure("departure-" + slot / settings.getRoutes())
+                .revision(System.nanoTime())
+                .payload(Long.toHexString(ThreadLocalRandom.current().nextLong()))
+                .build();
+    }
+
+    LoadEntity entityWithNewId(int slot) {
+        return entity(slot).toBuilder()
+                .id(UUID.randomUUID().toString())
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package travel.ferries2.springdata.ignite.load;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import travel.ferries2.springdata.ignite.Unique;
+import travel.ferries2.springdata.ignite.UniqueComposite;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Looks for rows sharing a {@link Unique} field or a {@link UniqueComposite} group, straight through SQL so the
+ * check does not depend on the repository it verifies.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class UniquenessVerifier {
+
+    static List<List<?>> findDuplicates(IgniteCache<?, ?> cache, Class<?> type) {
+        return uniqueGroups(type).stream()
+                .flatMap(columns -> cache.query(new SqlFieldsQuery(
+                        "SELECT " + columns + ", COUNT(*) FROM " + type.getSimpleName()
+                                + " GROUP BY " + columns + " HAVING COUNT(*) > 1"))
+                        .getAll().stream())
+                .collect(toList());
+    }
+
+    private static List<String> uniqueGroups(Class<?> type) {
+        Field[] fields = type.getDeclaredFields();
+        return Stream.concat(
+                Arrays.stream(fields)
+                        .filter(field -> field.isAnnotationPresent(Unique.class))
+                        .map(Field::getName),
+                Arrays.stream(fields)
+                        .filter(field -> field.isAnnotationPresent(UniqueComposite.class))
+                        .collect(groupingBy(field -> field.getAnnotation(UniqueComposite.class).keyName()))
+                        .values().stream()
+                        .map(UniquenessVerifier::columns))
+                .collect(toList());
+    }
+
+    private static String columns(Collection<Field> fields) {
+        return fields.stream()
+                .map(Field::getName)
+                .collect(joining(", "));
+    }
+}
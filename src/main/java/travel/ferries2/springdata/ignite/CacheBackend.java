@@ -0,0 +1,103 @@
+package travel.ferries2.springdata.ignite;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.cache.query.SqlQuery;
+import org.apache.ignite.cache.query.TextQuery;
+import org.apache.ignite.client.ClientCache;
+
+import javax.cache.Cache;
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Query access shared by the thick ({@link IgniteCache}) and thin ({@link ClientCache}) repositories.
+ */
+interface CacheBackend<ID, T> {
+
+    QueryCursor<Cache.Entry<ID, T>> query(SqlQuery<ID, T> query);
+
+    QueryCursor<List<?>> query(SqlFieldsQuery query);
+
+    /**
+     * Only called when {@link #supportsFullText()}.
+     */
+    default QueryCursor<Cache.Entry<ID, T>> query(TextQuery<ID, T> query) {
+        throw new IllegalStateException("Full text queries are not supported by this backend");
+    }
+
+    default boolean supportsFullText() {
+        return false;
+    }
+
+    long size();
+
+    /**
+     * Whether the calling thread runs an Ignite transaction, which the work of other threads would not join.
+     */
+    boolean inTransaction();
+
+    static <ID, T> CacheBackend<ID, T> of(IgniteCache<ID, T> cache) {
+        return new CacheBackend<>() {
+            @Override
+            public QueryCursor<Cache.Entry<ID, T>> query(SqlQuery<ID, T> query) {
+                return cache.query(query);
+            }
+
+            @Override
+            public QueryCursor<List<?>> query(SqlFieldsQuery query) {
+                return cache.query(query);
+            }
+
+            @Override
+            public QueryCursor<Cache.Entry<ID, T>> query(TextQuery<ID, T> query) {
+                return cache.query(query);
+            }
+
+            @Override
+            public boolean supportsFullText() {
+                return true;
+            }
+
+            @Override
+            public long size() {
+                return cache.size(CachePeekMode.PRIMARY);
+            }
+
+            @Override
+            public boolean inTransaction() {
+                Ignite ignite = cache.unwrap(Ignite.class);
+                return nonNull(ignite) && nonNull(ignite.transactions().tx());
+            }
+        };
+    }
+
+    static <ID, T> CacheBackend<ID, T> of(ClientCache<ID, T> cache) {
+        return new CacheBackend<>() {
+            @Override
+            public QueryCursor<Cache.Entry<ID, T>> query(SqlQuery<ID, T> query) {
+                return cache.query(query);
+            }
+
+            @Override
+            public QueryCursor<List<?>> query(SqlFieldsQuery query) {
+                return cache.query(query);
+            }
+
+            @Override
+            public long size() {
+                return cache.size(CachePeekMode.PRIMARY);
+            }
+
+            @Override
+            public boolean inTransaction() {
+                // thin client transactions are not available in this Ignite version
+                return false;
+            }
+        };
+    }
+}
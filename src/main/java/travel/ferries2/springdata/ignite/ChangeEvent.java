@@ -0,0 +1,19 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Value;
+
+/**
+ * Entry change published by {@link ExtendedIgniteRepository#changes(ChangeFeedOptions)}. {@code value} is
+ * {@code null} for removals and {@code oldValue} is {@code null} for snapshot entries and creations.
+ */
+@Value
+public class ChangeEvent<ID, T> {
+    Type type;
+    ID key;
+    T value;
+    T oldValue;
+
+    public enum Type {
+        SNAPSHOT, CREATED, UPDATED, REMOVED, EXPIRED
+    }
+}
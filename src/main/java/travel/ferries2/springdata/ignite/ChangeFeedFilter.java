@@ -0,0 +1,22 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.cache.CacheEntryEventSerializableFilter;
+
+import javax.cache.event.CacheEntryEvent;
+
+/**
+ * Remote filter of the change feed: an event crosses the network only when the entry matches the filter before or
+ * after the change.
+ */
+@RequiredArgsConstructor
+class ChangeFeedFilter<ID, T> implements CacheEntryEventSerializableFilter<ID, T> {
+    private static final long serialVersionUID = 1L;
+
+    private final IgniteSqlQueryPredicate<T> predicate;
+
+    @Override
+    public boolean evaluate(CacheEntryEvent<? extends ID, ? extends T> event) {
+        return predicate.test(event.getValue()) || predicate.test(event.getOldValue());
+    }
+}
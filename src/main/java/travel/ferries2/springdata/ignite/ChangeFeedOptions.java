@@ -0,0 +1,32 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Settings of a change feed.
+ * <ul>
+ * <li>{@code filter}: only entries matching it, before or after the change, are sent from the server nodes. Its
+ * pageable is ignored and full text filters are rejected.</li>
+ * <li>{@code initialSnapshot}: publish the entries matching the filter before the live changes.</li>
+ * <li>{@code bufferSize}: live events kept while the subscriber has no demand; the feed fails once exceeded.</li>
+ * <li>{@code pageSize} and {@code timeInterval}: batching of events on the server nodes, see
+ * {@link org.apache.ignite.cache.query.ContinuousQuery}.</li>
+ * </ul>
+ */
+@Getter
+@Builder
+public class ChangeFeedOptions<T> {
+    private final IgniteSqlQuery<T> filter;
+    private final boolean initialSnapshot;
+    @Builder.Default
+    private final int bufferSize = 1024;
+    @Builder.Default
+    private final int pageSize = 1;
+    @Builder.Default
+    private final long timeInterval = 0;
+
+    public static <T> ChangeFeedOptions<T> all() {
+        return ChangeFeedOptions.<T>builder().build();
+    }
+}
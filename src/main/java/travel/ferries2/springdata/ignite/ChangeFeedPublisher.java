@@ -0,0 +1,232 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.Query;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+
+import javax.cache.Cache;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryUpdatedListener;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Publishes the changes of a cache through a {@link ContinuousQuery}, one per subscriber. Events are emitted as the
+ * subscriber requests them, live events waiting for demand are buffered up to
+ * {@link ChangeFeedOptions#getBufferSize()} and the feed fails with {@link IllegalStateException} beyond that.
+ * The initial snapshot is only read on the subscribing and requesting threads; once it is exhausted, live events
+ * may be delivered on Ignite callback threads, so subscribers should hand off expensive work.
+ */
+@RequiredArgsConstructor
+class ChangeFeedPublisher<ID, T> implements Flow.Publisher<ChangeEvent<ID, T>> {
+    private final IgniteCache<ID, T> cache;
+    private final ChangeFeedOptions<T> options;
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ChangeEvent<ID, T>> subscriber) {
+        ChangeFeedSubscription subscription = new ChangeFeedSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        try {
+            subscription.start();
+        } catch (RuntimeException e) {
+            subscription.fail(e);
+        }
+    }
+
+    private class ChangeFeedSubscription implements Flow.Subscription, CacheEntryUpdatedListener<ID, T> {
+        private final Flow.Subscriber<? super ChangeEvent<ID, T>> subscriber;
+        private final Queue<ChangeEvent<ID, T>> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile QueryCursor<Cache.Entry<ID, T>> cursor;
+        private volatile Iterator<Cache.Entry<ID, T>> snapshot;
+        private volatile boolean snapshotPending;
+        private volatile Throwable error;
+        private volatile boolean started;
+        private volatile boolean cancelled;
+
+        private ChangeFeedSubscription(Flow.Subscriber<? super ChangeEvent<ID, T>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            if (cancelled) {
+                return;
+            }
+            ContinuousQuery<ID, T> query = new ContinuousQuery<>();
+            query.setLocalListener(this);
+            query.setPageSize(options.getPageSize());
+            query.setTimeInterval(options.getTimeInterval());
+            IgniteSqlQueryPredicate<T> predicate = isNull(options.getFilter())
+                    ? null
+                    : new IgniteSqlQueryPredicate<>(options.getFilter());
+            if (nonNull(predicate) && !predicate.isEmpty()) {
+                query.setRemoteFilterFactory(FactoryBuilder.factoryOf(new ChangeFeedFilter<ID, T>(predicate)));
+            }
+            if (options.isInitialSnapshot()) {
+                query.setInitialQuery(snapshotQuery());
+                snapshotPending = true;
+            }
+            cursor = cache.query(query);
+            if (options.isInitialSnapshot()) {
+                snapshot = cursor.iterator();
+            }
+            if (cancelled) {
+                cursor.close();
+            }
+            started = true;
+            drain();
+        }
+
+        private Query<Cache.Entry<ID, T>> snapshotQuery() {
+            IgniteSqlQuery<T> filter = options.getFilter();
+            if (isNull(filter)) {
+                return new ScanQuery<>();
+            }
+            return IgniteSqlQuery.<T>builder()
+                    .clazz(filter.getClazz())
+                    .likeAndGroups(filter.getLikeAndGroups())
+                    .mayorOrEqual(filter.getMayorOrEqual())
+                    .minorOrEqual(filter.getMinorOrEqual())
+                    .like(filter.getLike())
+                    .joinOperator(filter.getJoinOperator())
+                    .toSqlQuery();
+        }
+
+        @Override
+        public void onUpdated(Iterable<CacheEntryEvent<? extends ID, ? extends T>> events) {
+            for (CacheEntryEvent<? extends ID, ? extends T> event : events) {
+                if (buffered.incrementAndGet() > options.getBufferSize()) {
+                    fail(new IllegalStateException("Change feed buffer of " + options.getBufferSize() + " events overflowed"));
+                    return;
+                }
+                buffer.offer(toChangeEvent(event));
+            }
+            // draining could page the snapshot cursor, which must not run on the continuous query callback thread:
+            // the buffered events are emitted by the next request() once the snapshot is exhausted
+            if (!snapshotPending) {
+                drain();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Requested " + n + " events, demand must be positive"));
+                return;
+            }
+            requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            close();
+        }
+
+        private void fail(Throwable throwable) {
+            if (isNull(error)) {
+                error = throwable;
+            }
+            // may run on the listener thread, which must not wait for the continuous query to stop
+            CompletableFuture.runAsync(this::close);
+            drain();
+        }
+
+        private void close() {
+            QueryCursor<Cache.Entry<ID, T>> current = cursor;
+            if (nonNull(current)) {
+                current.close();
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled && isNull(error)) {
+                    try {
+                        ChangeEvent<ID, T> event = next();
+                        if (isNull(event)) {
+                            break;
+                        }
+                        subscriber.onNext(event);
+                    } catch (RuntimeException e) {
+                        // snapshot page fetch or subscriber failure: terminate instead of leaving wip held
+                        fail(e);
+                        break;
+                    }
+                    emitted++;
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (nonNull(error)) {
+                    cancelled = true;
+                    buffer.clear();
+                    subscriber.onError(error);
+                    return;
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private ChangeEvent<ID, T> next() {
+            if (!started) {
+                return null;
+            }
+            Iterator<Cache.Entry<ID, T>> current = snapshot;
+            if (nonNull(current)) {
+                if (current.hasNext()) {
+                    Cache.Entry<ID, T> entry = current.next();
+                    return new ChangeEvent<>(ChangeEvent.Type.SNAPSHOT, entry.getKey(), entry.getValue(), null);
+                }
+                snapshot = null;
+                snapshotPending = false;
+            }
+            ChangeEvent<ID, T> event = buffer.poll();
+            if (nonNull(event)) {
+                buffered.decrementAndGet();
+            }
+            return event;
+        }
+
+        private ChangeEvent<ID, T> toChangeEvent(CacheEntryEvent<? extends ID, ? extends T> event) {
+            switch (event.getEventType()) {
+                case CREATED:
+                    return new ChangeEvent<>(ChangeEvent.Type.CREATED, event.getKey(), event.getValue(), null);
+                case UPDATED:
+                    return new ChangeEvent<>(ChangeEvent.Type.UPDATED, event.getKey(), event.getValue(), event.getOldValue());
+                case REMOVED:
+                    return new ChangeEvent<>(ChangeEvent.Type.REMOVED, event.getKey(), null, removedValue(event));
+                default:
+                    return new ChangeEvent<>(ChangeEvent.Type.EXPIRED, event.getKey(), null, removedValue(event));
+            }
+        }
+
+        private T removedValue(CacheEntryEvent<? extends ID, ? extends T> event) {
+            return nonNull(event.getOldValue()) ? event.getOldValue() : event.getValue();
+        }
+    }
+}
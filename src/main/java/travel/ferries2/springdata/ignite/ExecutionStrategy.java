@@ -0,0 +1,134 @@
+package travel.ferries2.springdata.ignite;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * How bulk operations run their independent steps (unique key lookups, chunked puts and removals). The default
+ * runs them one after another on the caller thread. The concurrent strategies submit them to an executor, with at
+ * most {@code maxConcurrency} in flight: the caller blocks beyond that. Steps called within a Spring or an Ignite
+ * transaction always run on the caller thread, where the transaction is bound. As {@code saveAll} is
+ * {@code @Transactional}, it only fans out when no Spring transaction manager is configured.
+ */
+public class ExecutionStrategy {
+    private static final ExecutionStrategy SEQUENTIAL = new ExecutionStrategy(null, 1, Integer.MAX_VALUE);
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final int chunkSize;
+
+    private ExecutionStrategy(Executor executor, int maxConcurrency, int chunkSize) {
+        if (maxConcurrency < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("maxConcurrency and chunkSize must be positive");
+        }
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.chunkSize = chunkSize;
+    }
+
+    public static ExecutionStrategy sequential() {
+        return SEQUENTIAL;
+    }
+
+    public static ExecutionStrategy concurrent(Executor executor, int maxConcurrency, int chunkSize) {
+        return new ExecutionStrategy(executor, maxConcurrency, chunkSize);
+    }
+
+    /**
+     * Concurrent strategy running each step on its own virtual thread.
+     *
+     * @throws UnsupportedOperationException before JDK 21
+     */
+    public static ExecutionStrategy virtualThreads(int maxConcurrency, int chunkSize) {
+        try {
+            Executor executor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return concurrent(executor, maxConcurrency, chunkSize);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads need JDK 21 or newer", e);
+        }
+    }
+
+    /**
+     * Stops submitting at the first failure and rethrows it once every submitted task has finished, so no step
+     * keeps writing after the caller got the exception.
+     *
+     * @return the results of {@code task} in the order of {@code inputs}
+     */
+    <I, O> List<O> map(Collection<I> inputs, Function<I, O> task) {
+        if (isSequential() || inputs.size() < 2) {
+            return inputs.stream().map(task).collect(toList());
+        }
+        Semaphore permits = new Semaphore(maxConcurrency);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<O>> futures = new ArrayList<>(inputs.size());
+        try {
+            for (I input : inputs) {
+                permits.acquire();
+                if (nonNull(failure.get())) {
+                    break;
+                }
+                futures.add(CompletableFuture.supplyAsync(() -> task.apply(input), executor)
+                        .whenComplete((result, error) -> {
+                            if (nonNull(error)) {
+                                failure.compareAndSet(null, error);
+                            }
+                            permits.release();
+                        }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            awaitAll(futures);
+            throw new IllegalStateException("Interrupted while submitting repository operations", e);
+        } catch (RuntimeException e) {
+            awaitAll(futures);
+            throw e;
+        }
+        awaitAll(futures);
+        Throwable error = failure.get();
+        if (nonNull(error)) {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+        }
+        return futures.stream().map(CompletableFuture::join).collect(toList());
+    }
+
+    <E> void forEachChunk(Collection<E> elements, Consumer<List<E>> task) {
+        List<E> list = new ArrayList<>(elements);
+        List<List<E>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + chunkSize)));
+        }
+        map(chunks, chunk -> {
+            task.accept(chunk);
+            return chunk;
+        });
+    }
+
+    private static void awaitAll(List<? extends CompletableFuture<?>> futures) {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(error -> null)
+                .join();
+    }
+
+    boolean isConcurrent() {
+        return nonNull(executor);
+    }
+
+    private boolean isSequential() {
+        return !isConcurrent() || TransactionSynchronizationManager.isActualTransactionActive();
+    }
+}
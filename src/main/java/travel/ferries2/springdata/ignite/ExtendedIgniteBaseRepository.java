@@ -0,0 +1,38 @@
+package travel.ferries2.springdata.ignite;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Operations available on both the thick and the thin client backends. Extend it in the repositories served
+ * through an {@link org.apache.ignite.client.IgniteClient}, and {@link ExtendedIgniteRepository} otherwise.
+ */
+@NoRepositoryBean
+public interface ExtendedIgniteBaseRepository<T, ID extends Serializable> extends PagingAndSortingRepository<T, ID> {
+
+    <S extends T> S save(ID key, S entity);
+
+    <S extends T> Iterable<S> save(Map<ID, S> entities);
+
+    void deleteAllById(Iterable<ID> ids);
+
+    Optional<T> findByUniqueIdentifiers(T entity);
+
+    /**
+     * Full text queries are rejected with {@link org.springframework.dao.InvalidDataAccessApiUsageException} by the
+     * thin client backend.
+     */
+    Page<T> query(IgniteSqlQuery<T> query);
+
+    Page<T> query(IgniteSqlQuery<T> query, QueryCancellation cancellation);
+
+    Page<T> findAll(Pageable pageable, QueryCancellation cancellation);
+
+    QueryPlan explain(IgniteSqlQuery<T> query);
+}
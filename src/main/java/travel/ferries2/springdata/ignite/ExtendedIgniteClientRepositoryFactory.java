@@ -0,0 +1,64 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Setter;
+import org.apache.ignite.client.IgniteClient;
+import org.apache.ignite.springdata20.repository.config.RepositoryConfig;
+import org.springframework.data.repository.core.EntityInformation;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.core.support.ReflectionEntityInformation;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository factory for the thin client backend. Repositories must extend {@link ExtendedIgniteBaseRepository}
+ * rather than {@link ExtendedIgniteRepository}. Derived query methods are not supported, use
+ * {@link ExtendedIgniteBaseRepository#query(IgniteSqlQuery)} instead.
+ */
+public class ExtendedIgniteClientRepositoryFactory extends RepositoryFactorySupport {
+    private final Map<Class<?>, String> repoToCache = new ConcurrentHashMap<>();
+    private final IgniteClient client;
+    @Setter
+    private QueryPlanGuard queryPlanGuard = QueryPlanGuard.disabled();
+    @Setter
+    private ExecutionStrategy executionStrategy = ExecutionStrategy.sequential();
+
+    public ExtendedIgniteClientRepositoryFactory(IgniteClient client) {
+        this.client = client;
+    }
+
+    @Override
+    protected RepositoryMetadata getRepositoryMetadata(Class<?> repositoryInterface) {
+        RepositoryConfig config = repositoryInterface.getAnnotation(RepositoryConfig.class);
+        Assert.notNull(config, "@RepositoryConfig annotation must be specified for repository " + repositoryInterface.getName());
+        Assert.hasText(config.cacheName(), "@RepositoryConfig cacheName must be set for repository " + repositoryInterface.getName());
+        Assert.isTrue(!ExtendedIgniteRepository.class.isAssignableFrom(repositoryInterface),
+                "Thin client repository " + repositoryInterface.getName() + " must extend ExtendedIgniteBaseRepository instead of ExtendedIgniteRepository");
+        repoToCache.put(repositoryInterface, config.cacheName());
+        return super.getRepositoryMetadata(repositoryInterface);
+    }
+
+    @Override
+    protected Class<?> getRepositoryBaseClass(RepositoryMetadata metadata) {
+        return ExtendedIgniteClientRepositoryImplementation.class;
+    }
+
+    @Override
+    public <T, ID> EntityInformation<T, ID> getEntityInformation(Class<T> domainClass) {
+        return new ReflectionEntityInformation<>(domainClass);
+    }
+
+    @Override
+    protected Object getTargetRepository(RepositoryInformation metadata) {
+        ExtendedIgniteClientRepositoryImplementation<?, ?> repository = getTargetRepositoryViaReflection(
+                metadata,
+                client.getOrCreateCache(repoToCache.get(metadata.getRepositoryInterface())),
+                getEntityInformation(metadata.getDomainType()));
+        repository.setQueryPlanGuard(queryPlanGuard);
+        repository.setExecutionStrategy(executionStrategy);
+        return repository;
+    }
+}
@@ -0,0 +1,179 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Getter;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.client.ClientCache;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.core.EntityInformation;
+
+import javax.cache.Cache;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * {@link ExtendedIgniteBaseRepository} on top of the Ignite thin client, so the application does not join the
+ * topology. The thin client has neither continuous nor full text queries, hence no change feed and full text
+ * {@link IgniteSqlQuery} are rejected. Use {@link #getClientCache()} for direct cache access.
+ */
+public class ExtendedIgniteClientRepositoryImplementation<T, ID extends Serializable> implements ExtendedIgniteBaseRepository<T, ID> {
+    @Getter
+    private final ClientCache<ID, T> clientCache;
+    private final RepositorySupport<T, ID> support;
+
+    public ExtendedIgniteClientRepositoryImplementation(ClientCache<ID, T> clientCache, EntityInformation<T, ID> entityInformation) {
+        this.clientCache = clientCache;
+        this.support = new RepositorySupport<>(entityInformation, CacheBackend.of(clientCache));
+    }
+
+    @NotNull
+    @Override
+    public <S extends T> S save(@NotNull S entity) {
+        return save(support.getId(entity), entity);
+    }
+
+    @Override
+    public <S extends T> S save(ID key, S entity) {
+        return support.findIdByUniqueFields(entity)
+                .map(id -> put(id, support.setId(key, id, entity)))
+                .orElseGet(() -> put(key, entity));
+    }
+
+    @Override
+    public <S extends T> Iterable<S> save(Map<ID, S> entities) {
+        Map<ID, S> resolved = support.resolveUniqueIds(entities);
+        support.putInChunks(resolved, clientCache::putAll);
+        return resolved.values();
+    }
+
+    @NotNull
+    @Override
+    public <S extends T> Iterable<S> saveAll(@NotNull Iterable<S> entities) {
+        return save(StreamsSupport.sequentialStream(entities)
+                .collect(toMap(support::getRequiredId, Function.identity())));
+    }
+
+    @NotNull
+    @Override
+    public Optional<T> findById(@NotNull ID id) {
+        return Optional.ofNullable(clientCache.get(id));
+    }
+
+    @Override
+    public boolean existsById(@NotNull ID id) {
+        return clientCache.containsKey(id);
+    }
+
+    @NotNull
+    @Override
+    public Iterable<T> findAll() {
+        try (QueryCursor<Cache.Entry<ID, T>> cursor = clientCache.query(new ScanQuery<ID, T>())) {
+            return cursor.getAll().stream()
+                    .map(Cache.Entry::getValue)
+                    .collect(toUnmodifiableList());
+        }
+    }
+
+    @NotNull
+    @Override
+    public Iterable<T> findAllById(@NotNull Iterable<ID> ids) {
+        return clientCache.getAll(StreamsSupport.sequentialStream(ids).collect(toSet())).values();
+    }
+
+    @Override
+    public long count() {
+        return clientCache.size(CachePeekMode.PRIMARY);
+    }
+
+    @Override
+    public void deleteById(@NotNull ID id) {
+        clientCache.remove(id);
+    }
+
+    @Override
+    public void delete(@NotNull T entity) {
+        Optional.ofNullable(support.getId(entity))
+                .filter(this::existsById)
+                .or(() -> support.findIdByUniqueFields(entity))
+                .ifPresent(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(@NotNull Iterable<? extends T> entities) {
+        support.removeInChunks(StreamsSupport.sequentialStream(entities)
+                .map(support::getRequiredId)
+                .collect(toSet()), clientCache::removeAll);
+    }
+
+    @Override
+    public void deleteAllById(Iterable<ID> ids) {
+        clientCache.removeAll(StreamsSupport.sequentialStream(ids).collect(toSet()));
+    }
+
+    @Override
+    public void deleteAll() {
+        clientCache.removeAll();
+    }
+
+    @NotNull
+    @Override
+    public Iterable<T> findAll(@NotNull Sort sort) {
+        return support.findAll(sort);
+    }
+
+    @NotNull
+    @Override
+    public Page<T> findAll(@NotNull Pageable pageable) {
+        return findAll(pageable, QueryCancellation.none());
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable, QueryCancellation cancellation) {
+        return support.findAll(pageable, cancellation);
+    }
+
+    @Override
+    public Page<T> query(IgniteSqlQuery<T> query) {
+        return query(query, QueryCancellation.none());
+    }
+
+    @Override
+    public Page<T> query(IgniteSqlQuery<T> query, QueryCancellation cancellation) {
+        return support.query(query, cancellation);
+    }
+
+    @Override
+    public QueryPlan explain(IgniteSqlQuery<T> query) {
+        return support.explain(query);
+    }
+
+    public void setQueryPlanGuard(QueryPlanGuard queryPlanGuard) {
+        support.setQueryPlanGuard(queryPlanGuard);
+    }
+
+    public void setExecutionStrategy(ExecutionStrategy executionStrategy) {
+        support.setExecutionStrategy(executionStrategy);
+    }
+
+    @Override
+    public Optional<T> findByUniqueIdentifiers(T entity) {
+        return Optional.ofNullable(support.getId(entity))
+                .flatMap(this::findById)
+                .or(() -> support.findByUniqueFields(entity));
+    }
+
+    private <S extends T> S put(ID key, S entity) {
+        clientCache.put(key, entity);
+        return entity;
+    }
+}
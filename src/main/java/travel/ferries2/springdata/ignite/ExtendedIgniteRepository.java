@@ -2,19 +2,15 @@ package travel.ferries2.springdata.ignite;
 
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.springdata20.repository.IgniteRepository;
-import org.springframework.data.domain.Page;
 import org.springframework.data.repository.NoRepositoryBean;
-import org.springframework.data.repository.PagingAndSortingRepository;
 
 import java.io.Serializable;
-import java.util.Optional;
+import java.util.concurrent.Flow;
 
 @NoRepositoryBean
-public interface ExtendedIgniteRepository<T, ID extends Serializable> extends IgniteRepository<T, ID>, PagingAndSortingRepository<T, ID> {
+public interface ExtendedIgniteRepository<T, ID extends Serializable> extends IgniteRepository<T, ID>, ExtendedIgniteBaseRepository<T, ID> {
 
-    Optional<T> findByUniqueIdentifiers(T entity);
-
-    Page<T> query(IgniteSqlQuery<T> query);
+    Flow.Publisher<ChangeEvent<ID, T>> changes(ChangeFeedOptions<T> options);
 
     IgniteCache<ID, T> getCache();
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package travel.ferries2.springdata.ignite;
 
+import lombok.Setter;
 import lombok.SneakyThrows;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.springdata20.repository.support.IgniteRepositoryFactory;
@@ -14,6 +15,10 @@ import java.util.Map;
 public class ExtendedIgniteRepositoryFactory extends IgniteRepositoryFactory {
     private final Map<Class<?>, String> repoToCache;
     private final Ignite ignite;
+    @Setter
+    private QueryPlanGuard queryPlanGuard = QueryPlanGuard.disabled();
+    @Setter
+    private ExecutionStrategy executionStrategy = ExecutionStrategy.sequential();
 
     public ExtendedIgniteRepositoryFactory(Ignite ignite) {
         super(ignite);
@@ -41,10 +46,13 @@ public class ExtendedIgniteRepositoryFactory extends IgniteRepositoryFactory {
 
     @Override
     protected Object getTargetRepository(RepositoryInformation metadata) {
-        return getTargetRepositoryViaReflection(
+        ExtendedIgniteRepositoryImplementation<?, ?> repository = getTargetRepositoryViaReflection(
                 metadata,
                 ignite.getOrCreateCache(repoToCache.get(metadata.getRepositoryInterface())),
                 getEntityInformation(metadata.getDomainType()));
+        repository.setQueryPlanGuard(queryPlanGuard);
+        repository.setExecutionStrategy(executionStrategy);
+        return repository;
     }
 }
 
@@ -1,6 +1,7 @@
 package travel.ferries2.springdata.ignite;
 
 import org.apache.ignite.Ignite;
+import org.apache.ignite.client.IgniteClient;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
@@ -10,6 +11,7 @@ import org.springframework.data.repository.core.support.RepositoryFactoryBeanSup
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
 
 import java.io.Serializable;
+import java.util.Optional;
 
 public class ExtendedIgniteRepositoryFactoryBean<T extends Repository<S, ID>, S, ID extends Serializable>
         extends RepositoryFactoryBeanSupport<T, S, ID> implements ApplicationContextAware {
@@ -25,9 +27,33 @@ public class ExtendedIgniteRepositoryFactoryBean<T extends Repository<S, ID>, S,
         this.applicationContext = applicationContext;
     }
 
+    /**
+     * Uses the {@link Ignite} bean when there is one and falls back to the thin client when only an
+     * {@link IgniteClient} bean is defined. {@link QueryPlanGuard} and {@link ExecutionStrategy} beans, if any, are
+     * applied to the repositories.
+     */
     @NotNull
     @Override
     protected RepositoryFactorySupport createRepositoryFactory() {
-        return new ExtendedIgniteRepositoryFactory(applicationContext.getBean(Ignite.class));
+        QueryPlanGuard queryPlanGuard = getOptionalBean(QueryPlanGuard.class).orElse(QueryPlanGuard.disabled());
+        ExecutionStrategy executionStrategy = getOptionalBean(ExecutionStrategy.class).orElse(ExecutionStrategy.sequential());
+        if (!hasBean(Ignite.class) && hasBean(IgniteClient.class)) {
+            ExtendedIgniteClientRepositoryFactory factory = new ExtendedIgniteClientRepositoryFactory(applicationContext.getBean(IgniteClient.class));
+            factory.setQueryPlanGuard(queryPlanGuard);
+            factory.setExecutionStrategy(executionStrategy);
+            return factory;
+        }
+        ExtendedIgniteRepositoryFactory factory = new ExtendedIgniteRepositoryFactory(applicationContext.getBean(Ignite.class));
+        factory.setQueryPlanGuard(queryPlanGuard);
+        factory.setExecutionStrategy(executionStrategy);
+        return factory;
+    }
+
+    private <B> Optional<B> getOptionalBean(Class<B> type) {
+        return hasBean(type) ? Optional.of(applicationContext.getBean(type)) : Optional.empty();
+    }
+
+    private boolean hasBean(Class<?> type) {
+        return applicationContext.getBeanNamesForType(type).length != 0;
     }
 }
@@ -6,14 +6,21 @@ import lombok.NonNull;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.ignite.cache.query.SqlFieldsQuery;
 import org.apache.ignite.cache.query.SqlQuery;
+import org.apache.ignite.cache.query.TextQuery;
+import org.apache.ignite.cache.query.annotations.QueryTextField;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.util.ReflectionUtils;
 
 import java.io.Serializable;
+import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.joining;
 import static org.apache.commons.collections4.ListUtils.emptyIfNull;
@@ -22,11 +29,20 @@ import static org.apache.ignite.springdata20.repository.query.IgniteQueryGenerat
 @Getter
 @Builder
 public class IgniteSqlQuery<T> {
+    private static final String LUCENE_SPECIAL_CHARACTERS = "\\+-!():^[]\"{}~*?|&/";
+    private static final Pattern LUCENE_OPERATORS = Pattern.compile("\\b(AND|OR|NOT)\\b");
 
     private final List<List<Pair<String, ?>>> likeAndGroups;
     private final List<Pair<String, ?>> mayorOrEqual;
     private final List<Pair<String, ?>> minorOrEqual;
     private final List<Pair<String, ?>> like;
+    /**
+     * Lucene query on a {@link QueryTextField} field, as field name and text. The text is searched as plain terms:
+     * Lucene syntax and operators in it are escaped. The other conditions are applied to
+     * its matches and results come in relevance order, ignoring the sort of the pageable. Matches are read up to one
+     * past the requested page, so the total of a page that is not the last one is a lower bound.
+     */
+    private final Pair<String, String> fullText;
     private final Pageable pageable;
     private final JoinOperator joinOperator;
     @NonNull
@@ -36,6 +52,20 @@ public class IgniteSqlQuery<T> {
         return new SqlFieldsQuery("COUNT (*) " + deletePagination(selectQuery.getSql())).setArgs(selectQuery.getArgs());
     }
 
+    static <ID, T> SqlFieldsQuery convertToExplain(SqlQuery<ID, T> selectQuery) {
+        return new SqlFieldsQuery("EXPLAIN SELECT _key, _val FROM " + selectQuery.getType() + whereClause(selectQuery.getSql()))
+                .setArgs(selectQuery.getArgs());
+    }
+
+    static <ID, T> SqlFieldsQuery convertToKeys(SqlQuery<ID, T> selectQuery) {
+        return new SqlFieldsQuery("SELECT _key FROM " + selectQuery.getType() + whereClause(selectQuery.getSql()))
+                .setArgs(selectQuery.getArgs());
+    }
+
+    static <ID, T> String shape(SqlQuery<ID, T> selectQuery) {
+        return selectQuery.getType() + ":" + deletePagination(selectQuery.getSql());
+    }
+
     static <ID, T> SqlQuery<ID, T> pagination(Class<T> type, Pageable pageable) {
         return create(type, pagination(pageable));
     }
@@ -55,6 +85,14 @@ public class IgniteSqlQuery<T> {
                         .toArray());
     }
 
+    boolean isFullText() {
+        return nonNull(fullText);
+    }
+
+    <ID> TextQuery<ID, T> toTextQuery() {
+        return new TextQuery<>(clazz, fullText.getKey() + ":(" + escapeLucene(fullText.getValue()) + ")");
+    }
+
     private Stream<String> setOperator(List<Pair<String, ?>> fields, String operator) {
         return fields.stream().map(f -> f.getKey() + operator);
     }
@@ -86,6 +124,29 @@ public class IgniteSqlQuery<T> {
                 .orElse("");
     }
 
+    /**
+     * Same escaping as Lucene's {@code QueryParser.escape}, which is not on the classpath without ignite-indexing,
+     * plus lower casing of the boolean operators so they are searched as terms.
+     */
+    private static String escapeLucene(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (LUCENE_SPECIAL_CHARACTERS.indexOf(c) != -1) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return LUCENE_OPERATORS.matcher(escaped).replaceAll(match -> match.group().toLowerCase());
+    }
+
+    private static String whereClause(String sql) {
+        String trimmed = sql.trim().toUpperCase();
+        if (trimmed.isEmpty() || trimmed.startsWith("ORDER BY ") || trimmed.startsWith("LIMIT ")) {
+            return " " + sql.trim();
+        }
+        return " WHERE " + sql.trim();
+    }
+
     private static String deletePagination(String sql) {
         int orderByIndex = sql.indexOf(" ORDER BY ");
         if (orderByIndex != -1) {
@@ -105,6 +166,7 @@ public class IgniteSqlQuery<T> {
                     emptyIfNull(mayorOrEqual),
                     emptyIfNull(minorOrEqual),
                     emptyIfNull(like),
+                    assertTextIndexed(fullText),
                     Optional.ofNullable(pageable).orElse(Pageable.unpaged()),
                     Optional.ofNullable(joinOperator).orElse(JoinOperator.AND),
                     clazz);
@@ -113,5 +175,22 @@ public class IgniteSqlQuery<T> {
         public <ID> SqlQuery<ID, T> toSqlQuery() {
             return build().toSqlQuery();
         }
+
+        public IgniteSqlQueryBuilder<T> fullText(String field, String text) {
+            this.fullText = Pair.of(field, text);
+            return this;
+        }
+
+        private Pair<String, String> assertTextIndexed(Pair<String, String> fullText) {
+            if (isNull(fullText) || isNull(clazz)) {
+                return fullText;
+            }
+            Field field = ReflectionUtils.findField(clazz, fullText.getKey());
+            if (isNull(field) || !field.isAnnotationPresent(QueryTextField.class)) {
+                throw new InvalidDataAccessApiUsageException("Full text search needs " + clazz.getSimpleName() + "."
+                        + fullText.getKey() + " to be annotated with @QueryTextField");
+            }
+            return fullText;
+        }
     }
 }
@@ -0,0 +1,143 @@
+package travel.ferries2.springdata.ignite;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.toList;
+import static travel.ferries2.springdata.ignite.IgniteSqlQuery.JoinOperator.AND;
+
+/**
+ * In memory evaluation of the {@link IgniteSqlQuery} conditions, following SQL semantics: comparisons with
+ * {@code null} are false and {@code LIKE} supports the {@code %} and {@code _} wildcards. It is serializable so it
+ * can run as a remote filter on the server nodes.
+ */
+class IgniteSqlQueryPredicate<T> implements Predicate<T>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<List<Pair<String, ?>>> likeAndGroups;
+    private final List<Pair<String, ?>> mayorOrEqual;
+    private final List<Pair<String, ?>> minorOrEqual;
+    private final List<Pair<String, ?>> like;
+    private final IgniteSqlQuery.JoinOperator joinOperator;
+    private transient Map<String, Pattern> patterns;
+    private transient Map<String, Field> fields;
+
+    IgniteSqlQueryPredicate(IgniteSqlQuery<T> query) {
+        this.likeAndGroups = query.getLikeAndGroups().stream()
+                .<List<Pair<String, ?>>>map(ArrayList::new)
+                .collect(toList());
+        this.mayorOrEqual = new ArrayList<>(query.getMayorOrEqual());
+        this.minorOrEqual = new ArrayList<>(query.getMinorOrEqual());
+        this.like = new ArrayList<>(query.getLike());
+        this.joinOperator = query.getJoinOperator();
+    }
+
+    boolean isEmpty() {
+        return likeAndGroups.isEmpty() && mayorOrEqual.isEmpty() && minorOrEqual.isEmpty() && like.isEmpty();
+    }
+
+    @Override
+    public boolean test(T value) {
+        if (isEmpty()) {
+            return true;
+        }
+        if (isNull(value)) {
+            return false;
+        }
+        Stream<Boolean> conditions = StreamsSupport.concat(
+                likeAndGroups.stream().map(group -> group.stream().allMatch(field -> like(value, field))),
+                mayorOrEqual.stream().map(field -> compare(value, field, comparison -> comparison >= 0)),
+                minorOrEqual.stream().map(field -> compare(value, field, comparison -> comparison <= 0)),
+                like.stream().map(field -> like(value, field)));
+        return joinOperator == AND
+                ? conditions.allMatch(Boolean::booleanValue)
+                : conditions.anyMatch(Boolean::booleanValue);
+    }
+
+    private boolean like(T value, Pair<String, ?> field) {
+        Object fieldValue = getFieldValue(value, field.getKey());
+        if (isNull(field.getValue())) {
+            return isNull(fieldValue);
+        }
+        return !isNull(fieldValue) && pattern(field.getValue().toString()).matcher(fieldValue.toString()).matches();
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean compare(T value, Pair<String, ?> field, IntPredicate expected) {
+        Object fieldValue = getFieldValue(value, field.getKey());
+        Object argument = field.getValue();
+        if (isNull(fieldValue) || isNull(argument)) {
+            return false;
+        }
+        if (fieldValue instanceof Number && argument instanceof Number) {
+            return expected.test(new BigDecimal(fieldValue.toString()).compareTo(new BigDecimal(argument.toString())));
+        }
+        return expected.test(((Comparable<Object>) fieldValue).compareTo(argument));
+    }
+
+    private Object getFieldValue(T value, String name) {
+        if (isNull(fields)) {
+            fields = new ConcurrentHashMap<>();
+        }
+        Field field = fields.computeIfAbsent(name, key -> findField(value.getClass(), key));
+        return ReflectionUtils.getField(field, value);
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        Field field = Objects.requireNonNullElseGet(
+                ReflectionUtils.findField(type, name),
+                () -> Arrays.stream(type.getDeclaredFields())
+                        .filter(candidate -> candidate.getName().equalsIgnoreCase(name))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown field " + name + " in " + type.getName())));
+        ReflectionUtils.makeAccessible(field);
+        return field;
+    }
+
+    private Pattern pattern(String like) {
+        if (isNull(patterns)) {
+            patterns = new ConcurrentHashMap<>();
+        }
+        return patterns.computeIfAbsent(like, IgniteSqlQueryPredicate::toRegex);
+    }
+
+    private static Pattern toRegex(String like) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < like.length(); i++) {
+            char c = like.charAt(i);
+            if (c == '\\' && i + 1 < like.length()) {
+                literal.append(like.charAt(++i));
+            } else if (c == '%' || c == '_') {
+                appendLiteral(regex, literal);
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        appendLiteral(regex, literal);
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static void appendLiteral(StringBuilder regex, StringBuilder literal) {
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package travel.ferries2.springdata.ignite;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.ignite.cache.query.QueryCancelledException;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Deadline and cancellation handle for repository queries. The remaining time is applied as the Ignite query
+ * timeout and {@link #cancel()} closes the open cursors, which stops the query on the cluster. Expired queries fail
+ * with {@link QueryTimeoutException} and cancelled ones with {@link CancellationException}.
+ */
+public class QueryCancellation {
+    private final Instant deadline;
+    private final Set<QueryCursor<?>> cursors = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    private QueryCancellation(Instant deadline) {
+        this.deadline = deadline;
+    }
+
+    public static QueryCancellation none() {
+        return new QueryCancellation(null);
+    }
+
+    public static QueryCancellation withDeadline(Instant deadline) {
+        return new QueryCancellation(deadline);
+    }
+
+    public static QueryCancellation withTimeout(Duration timeout) {
+        return new QueryCancellation(Instant.now().plus(timeout));
+    }
+
+    public void cancel() {
+        cancelled = true;
+        cursors.forEach(QueryCursor::close);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isExpired() {
+        return nonNull(deadline) && !Instant.now().isBefore(deadline);
+    }
+
+    /**
+     * @return the remaining milliseconds to use as query timeout, {@code 0} meaning no timeout
+     */
+    int timeoutMillis() {
+        assertActive();
+        if (deadline == null) {
+            return 0;
+        }
+        long remaining = Duration.between(Instant.now(), deadline).toMillis();
+        if (remaining < 1) {
+            throw new QueryTimeoutException("Query deadline " + deadline + " exceeded");
+        }
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    void register(QueryCursor<?> cursor) {
+        cursors.add(cursor);
+        if (cancelled) {
+            cursor.close();
+        }
+    }
+
+    void unregister(QueryCursor<?> cursor) {
+        cursors.remove(cursor);
+    }
+
+    RuntimeException translate(RuntimeException exception) {
+        if (exception instanceof QueryTimeoutException || exception instanceof CancellationException) {
+            return exception;
+        }
+        if (cancelled) {
+            CancellationException cancellation = new CancellationException("Query cancelled");
+            cancellation.initCause(exception);
+            return cancellation;
+        }
+        if (isExpired() || nonNull(deadline) && ExceptionUtils.indexOfType(exception, QueryCancelledException.class) != -1) {
+            return new QueryTimeoutException("Query deadline " + deadline + " exceeded", exception);
+        }
+        return exception;
+    }
+
+    /**
+     * Fails when cancelled or past the deadline, for the query types that have no Ignite timeout.
+     */
+    void checkpoint() {
+        assertActive();
+        if (isExpired()) {
+            throw new QueryTimeoutException("Query deadline " + deadline + " exceeded");
+        }
+    }
+
+    private void assertActive() {
+        if (cancelled) {
+            throw new CancellationException("Query cancelled");
+        }
+    }
+}
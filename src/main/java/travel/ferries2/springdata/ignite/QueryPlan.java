@@ -0,0 +1,40 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plan of a query as returned by {@code EXPLAIN}, with the indexes it uses and the tables it scans.
+ */
+@Value
+public class QueryPlan {
+    private static final Pattern PLAN_COMMENT = Pattern.compile("/\\*(.*?)\\*/", Pattern.DOTALL);
+    private static final String SCAN_SUFFIX = ".__SCAN_";
+
+    String plan;
+    List<String> indexes;
+    List<String> scannedTables;
+
+    public boolean isFullScan() {
+        return !scannedTables.isEmpty();
+    }
+
+    static QueryPlan parse(String plan) {
+        List<String> indexes = new ArrayList<>();
+        List<String> scannedTables = new ArrayList<>();
+        Matcher matcher = PLAN_COMMENT.matcher(plan);
+        while (matcher.find()) {
+            String name = matcher.group(1).split(":", 2)[0].trim();
+            if (name.endsWith(SCAN_SUFFIX)) {
+                scannedTables.add(name.substring(0, name.length() - SCAN_SUFFIX.length()));
+            } else if (name.contains(".") && !name.contains("merge_")) {
+                indexes.add(name);
+            }
+        }
+        return new QueryPlan(plan, List.copyOf(indexes), List.copyOf(scannedTables));
+    }
+}
@@ -0,0 +1,70 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Detects full table scans in test or staging environments. The first executions of each query shape (the SQL
+ * with its {@code ?} placeholders) are sampled with {@code sampleRate} and explained once, caching the plan. Each
+ * time a scanning shape runs, the table size is read from the cluster, one extra remote call per run: a scan of a
+ * table holding more than {@code maxScannedTableSize} primary entries is logged ({@link Mode#WARN}) or rejected
+ * with {@link InvalidDataAccessResourceUsageException} ({@link Mode#FAIL}).
+ */
+@Slf4j
+@Builder
+public class QueryPlanGuard {
+    private static final QueryPlanGuard DISABLED = QueryPlanGuard.builder().mode(Mode.OFF).build();
+
+    @Builder.Default
+    private final Mode mode = Mode.WARN;
+    @Builder.Default
+    private final long maxScannedTableSize = 1000;
+    @Builder.Default
+    private final double sampleRate = 1.0;
+    private final Map<String, QueryPlan> plans = new ConcurrentHashMap<>();
+
+    public static QueryPlanGuard disabled() {
+        return DISABLED;
+    }
+
+    void check(String shape, Supplier<QueryPlan> plan, LongSupplier tableSize) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        QueryPlan cached = plans.get(shape);
+        if (cached == null) {
+            if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                return;
+            }
+            // explained outside the map: a remote query must not hold the lock of other shapes
+            QueryPlan explained = plan.get();
+            cached = Optional.ofNullable(plans.putIfAbsent(shape, explained)).orElse(explained);
+        }
+        if (cached.isFullScan()) {
+            long size = tableSize.getAsLong();
+            if (size > maxScannedTableSize) {
+                report("Query [" + shape + "] scans " + cached.getScannedTables() + " holding " + size
+                        + " entries, more than the allowed " + maxScannedTableSize + ". Plan:\n" + cached.getPlan());
+            }
+        }
+    }
+
+    private void report(String violation) {
+        if (mode == Mode.FAIL) {
+            throw new InvalidDataAccessResourceUsageException(violation);
+        }
+        log.warn(violation);
+    }
+
+    public enum Mode {
+        OFF, WARN, FAIL
+    }
+}
@@ -0,0 +1,344 @@
+package travel.ferries2.springdata.ignite;
+
+import com.google.common.collect.ImmutableList;
+import lombok.Setter;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.cache.query.SqlQuery;
+import org.apache.ignite.cache.query.annotations.QuerySqlField;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.core.EntityInformation;
+import org.springframework.data.util.AnnotationDetectionFieldCallback;
+import org.springframework.util.ReflectionUtils;
+
+import javax.cache.Cache;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toUnmodifiableList;
+import static java.util.stream.Collectors.toUnmodifiableSet;
+import static org.apache.commons.lang3.ObjectUtils.isEmpty;
+import static org.apache.commons.lang3.ObjectUtils.isNotEmpty;
+import static org.apache.ignite.springdata20.repository.query.IgniteQueryGenerator.addSorting;
+import static travel.ferries2.springdata.ignite.IgniteSqlQuery.JoinOperator.OR;
+import static travel.ferries2.springdata.ignite.IterablesSupport.noMoreThanOneElement;
+
+/**
+ * Unique key resolution, querying and paging shared by the thick and thin client repositories.
+ */
+class RepositorySupport<T, ID extends Serializable> {
+    private final EntityInformation<T, ID> entityInformation;
+    private final CacheBackend<ID, T> backend;
+    private final Field idField;
+    private final List<Field> indexedIdentifiersFields;
+    private final List<List<Field>> indexedCompositeIdentifiersFields;
+    @Setter
+    private QueryPlanGuard queryPlanGuard = QueryPlanGuard.disabled();
+    @Setter
+    private ExecutionStrategy executionStrategy = ExecutionStrategy.sequential();
+
+    RepositorySupport(EntityInformation<T, ID> entityInformation, CacheBackend<ID, T> backend) {
+        this.entityInformation = entityInformation;
+        this.backend = backend;
+
+        AnnotationDetectionFieldCallback callback = new AnnotationDetectionFieldCallback(Id.class);
+        ReflectionUtils.doWithFields(entityInformation.getJavaType(), callback);
+        idField = callback.getRequiredField();
+        ReflectionUtils.makeAccessible(idField);
+
+        List<Field> indexedFields = Arrays.stream(entityInformation.getJavaType().getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(QuerySqlField.class))
+                .filter(field -> field.getAnnotation(QuerySqlField.class).index())
+                .peek(field -> field.setAccessible(true))
+                .collect(toList());
+        indexedIdentifiersFields = indexedFields.stream()
+                .filter(field -> field.isAnnotationPresent(Unique.class))
+                .collect(toList());
+        indexedCompositeIdentifiersFields = ImmutableList.copyOf(indexedFields.stream()
+                .filter(field -> field.isAnnotationPresent(UniqueComposite.class))
+                .collect(groupingBy(field -> field.getAnnotation(UniqueComposite.class).keyName()))
+                .values());
+    }
+
+    <S extends T> S setId(ID key, ID id, S entity) {
+        if (isNull(key)) {
+            ReflectionUtils.setField(idField, entity, id);
+        } else if (!key.equals(id)) {
+            throw new DataIntegrityViolationException("Stored id:" + id + " does not correspond with new id:" + key);
+        }
+        return entity;
+    }
+
+    <S extends T> void assertUniqueSecondaryKeys(Map<ID, S> entities) {
+        List<Object> identifiers = entities.values().stream()
+                .flatMap(v -> Stream.concat(getExistingIndexedIdentifiers(v).stream(),
+                        getCompositeIdentifiers(v).stream()))
+                .collect(toList());
+        if (identifiers.stream().collect(toUnmodifiableSet()).size() != identifiers.size()) {
+            throw new DuplicateKeyException("Some elements share unique keys");
+        }
+    }
+
+    /**
+     * Replaces the keys of the entities already stored under the same unique fields by the stored ones, running the
+     * lookups with the {@link ExecutionStrategy}.
+     */
+    <S extends T> Map<ID, S> resolveUniqueIds(Map<ID, S> entities) {
+        assertUniqueSecondaryKeys(entities);
+        return executionStrategy().map(entities.entrySet(), entry -> findIdByUniqueFields(entry.getValue())
+                        .map(id -> (Map.Entry<ID, S>) Pair.of(id, setId(entry.getKey(), id, entry.getValue())))
+                        .orElse(entry))
+                .stream()
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    <S extends T> void putInChunks(Map<ID, S> entities, Consumer<Map<ID, S>> putAll) {
+        executionStrategy().forEachChunk(entities.entrySet(), chunk -> putAll.accept(chunk.stream()
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue))));
+    }
+
+    void removeInChunks(Set<ID> ids, Consumer<Set<ID>> removeAll) {
+        executionStrategy().forEachChunk(ids, chunk -> removeAll.accept(Set.copyOf(chunk)));
+    }
+
+    Iterable<T> findAll(Sort sort) {
+        return () -> getAll(new SqlQuery<ID, T>(
+                entityInformation.getJavaType(),
+                addSorting(new StringBuilder(), sort).toString()), QueryCancellation.none())
+                .iterator();
+    }
+
+    Page<T> findAll(Pageable pageable, QueryCancellation cancellation) {
+        if (pageable.isUnpaged()) {
+            throw new IllegalArgumentException();
+        }
+        List<T> result = getAll(IgniteSqlQuery.<ID, T>pagination(entityInformation.getJavaType(), pageable), cancellation)
+                .collect(toList());
+        return new PageImpl<>(
+                result,
+                pageable,
+                result.size() < pageable.getPageSize()
+                        ? result.size() + pageable.getOffset()
+                        : backend.size());
+    }
+
+    Page<T> query(IgniteSqlQuery<T> query, QueryCancellation cancellation) {
+        if (query.isFullText()) {
+            if (!backend.supportsFullText()) {
+                throw new InvalidDataAccessApiUsageException("Full text queries are not available through the thin client");
+            }
+            return fullTextQuery(query, cancellation);
+        }
+        SqlQuery<ID, T> sqlQuery = checkPlan(query.toSqlQuery());
+
+        List<T> result = getAll(sqlQuery, cancellation).collect(toUnmodifiableList());
+
+        return getPage(query.getPageable(), sqlQuery, result, cancellation);
+    }
+
+    QueryPlan explain(IgniteSqlQuery<T> query) {
+        if (query.isFullText()) {
+            throw new InvalidDataAccessApiUsageException("Full text queries run on Lucene and have no SQL plan");
+        }
+        return explain(query.<ID>toSqlQuery());
+    }
+
+    Optional<T> findByUniqueFields(T entity) {
+        return hasSecondaryIdentifiers() ? getBySecondaryIdentifiers(entity) : Optional.empty();
+    }
+
+    /**
+     * Same lookup as {@link #findByUniqueFields(Object)} selecting only {@code _key}, so the stored entity is
+     * neither transferred nor deserialized.
+     */
+    Optional<ID> findIdByUniqueFields(T entity) {
+        return hasSecondaryIdentifiers() ? getIdBySecondaryIdentifiers(entity) : Optional.empty();
+    }
+
+    <S extends T> ID getRequiredId(S entity) {
+        return entityInformation.getRequiredId(entity);
+    }
+
+    <S extends T> ID getId(S entity) {
+        return entityInformation.getId(entity);
+    }
+
+    private ExecutionStrategy executionStrategy() {
+        return executionStrategy.isConcurrent() && backend.inTransaction() ? ExecutionStrategy.sequential() : executionStrategy;
+    }
+
+    private Page<T> getPage(Pageable pageable, SqlQuery<ID, T> selectQuery, List<T> result, QueryCancellation cancellation) {
+        if (pageable.isPaged()) {
+            return new PageImpl<>(
+                    result,
+                    pageable,
+                    result.size() < pageable.getPageSize()
+                            ? result.size() + pageable.getOffset()
+                            : count(selectQuery, cancellation));
+        }
+        return new PageImpl<>(result);
+    }
+
+    private Page<T> fullTextQuery(IgniteSqlQuery<T> query, QueryCancellation cancellation) {
+        IgniteSqlQueryPredicate<T> predicate = new IgniteSqlQueryPredicate<>(query);
+        Pageable pageable = query.getPageable();
+        List<T> result = new ArrayList<>();
+        long total = 0;
+        cancellation.checkpoint();
+        try (QueryCursor<Cache.Entry<ID, T>> cursor = backend.query(query.<ID>toTextQuery())) {
+            cancellation.register(cursor);
+            try {
+                for (Cache.Entry<ID, T> entry : cursor) {
+                    cancellation.checkpoint();
+                    if (predicate.test(entry.getValue())) {
+                        total++;
+                        if (pageable.isPaged() && total > pageable.getOffset() + pageable.getPageSize()) {
+                            // a match past the page is enough to report a next one, closing the cursor stops fetching
+                            break;
+                        }
+                        if (pageable.isUnpaged() || total > pageable.getOffset()) {
+                            result.add(entry.getValue());
+                        }
+                    }
+                }
+            } finally {
+                cancellation.unregister(cursor);
+            }
+        } catch (RuntimeException e) {
+            throw cancellation.translate(e);
+        }
+        return pageable.isPaged()
+                ? new PageImpl<>(unmodifiableList(result), pageable, total)
+                : new PageImpl<>(unmodifiableList(result));
+    }
+
+    private Long count(SqlQuery<ID, T> selectQuery, QueryCancellation cancellation) {
+        SqlFieldsQuery countQuery = IgniteSqlQuery.convertToCount(selectQuery)
+                .setTimeout(cancellation.timeoutMillis(), MILLISECONDS);
+        return (Long) noMoreThanOneElement(getAll(() -> backend.query(countQuery), cancellation))
+                .orElseThrow(() -> new EmptyResultDataAccessException("Expected count result", 1))
+                .get(0);
+    }
+
+    private QueryPlan explain(SqlQuery<ID, T> sqlQuery) {
+        return QueryPlan.parse(getAll(() -> backend.query(IgniteSqlQuery.convertToExplain(sqlQuery)), QueryCancellation.none())
+                .stream()
+                .map(row -> String.valueOf(row.get(0)))
+                .collect(joining("\n")));
+    }
+
+    private SqlQuery<ID, T> checkPlan(SqlQuery<ID, T> sqlQuery) {
+        queryPlanGuard.check(IgniteSqlQuery.shape(sqlQuery), () -> explain(sqlQuery), backend::size);
+        return sqlQuery;
+    }
+
+    private Stream<T> getAll(SqlQuery<ID, T> sqlQuery, QueryCancellation cancellation) {
+        sqlQuery.setTimeout(cancellation.timeoutMillis(), MILLISECONDS);
+        return getAll(() -> backend.query(sqlQuery), cancellation).stream()
+                .map(Cache.Entry::getValue);
+    }
+
+    private <R> List<R> getAll(Supplier<QueryCursor<R>> query, QueryCancellation cancellation) {
+        try (QueryCursor<R> cursor = query.get()) {
+            cancellation.register(cursor);
+            try {
+                return cursor.getAll();
+            } finally {
+                cancellation.unregister(cursor);
+            }
+        } catch (RuntimeException e) {
+            throw cancellation.translate(e);
+        }
+    }
+
+    private <S extends T> Optional<T> getBySecondaryIdentifiers(S entity) {
+        return getSecondaryIdentifiersQuery(entity)
+                .flatMap(sqlQuery -> noMoreThanOneElement(getAll(sqlQuery, QueryCancellation.none())
+                        .collect(toList())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S extends T> Optional<ID> getIdBySecondaryIdentifiers(S entity) {
+        return getSecondaryIdentifiersQuery(entity)
+                .flatMap(sqlQuery -> noMoreThanOneElement(getAll(
+                        () -> backend.query(IgniteSqlQuery.convertToKeys(sqlQuery)), QueryCancellation.none())))
+                .map(row -> (ID) row.get(0));
+    }
+
+    private <S extends T> Optional<SqlQuery<ID, T>> getSecondaryIdentifiersQuery(S entity) {
+
+        List<Pair<String, ?>> identifiers = getExistingIndexedIdentifiers(entity);
+
+        List<List<Pair<String, ?>>> compositeIdentifiers = getCompositeIdentifiers(entity);
+
+        if (isNotEmpty(identifiers) || isNotEmpty(compositeIdentifiers)) {
+
+            return Optional.of(checkPlan(IgniteSqlQuery.<T>builder()
+                    .clazz(entityInformation.getJavaType())
+                    .likeAndGroups(compositeIdentifiers)
+                    .like(identifiers)
+                    .joinOperator(OR)
+                    .toSqlQuery()));
+        }
+
+        return Optional.empty();
+    }
+
+    private boolean hasSecondaryIdentifiers() {
+        return isEmpty(indexedIdentifiersFields) && isNotEmpty(indexedCompositeIdentifiersFields);
+    }
+
+    private List<List<Pair<String, ?>>> getCompositeIdentifiers(T entity) {
+        return indexedCompositeIdentifiersFields.stream()
+                .map(compositeId -> getIndexedFields(compositeId, entity))
+                .collect(toUnmodifiableList());
+    }
+
+    private List<Pair<String, ?>> getIndexedFields(List<Field> fields, T entity) {
+        return streamKeyValueFields(fields, entity)
+                .collect(toUnmodifiableList());
+    }
+
+    private List<Pair<String, ?>> getExistingIndexedIdentifiers(T entity) {
+        return streamKeyValueFields(indexedIdentifiersFields, entity)
+                .filter(pair -> nonNull(pair.getValue()))
+                .collect(toUnmodifiableList());
+    }
+
+    private Stream<Pair<String, ?>> streamKeyValueFields(List<Field> fields, T entity) {
+        return fields.stream()
+                .map(field -> getKeyValue(entity, field));
+    }
+
+    @SneakyThrows
+    private Pair<String, ?> getKeyValue(T entity, Field field) {
+        return Pair.of(field.getName(), field.get(entity));
+    }
+}
@@ -0,0 +1,254 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Builder;
+import lombok.Data;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.annotations.QuerySqlField;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.annotation.Id;
+
+import javax.cache.CacheException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class ChangeFeedPublisherTest {
+    private static final String CACHE_NAME = "routes";
+    private static final Route ROUTE = Route.builder()
+            .id("id")
+            .origin("Algeciras")
+            .destination("Tanger")
+            .duration(90)
+            .build();
+
+    private static Ignite server;
+
+    private IgniteCache<String, Route> cache;
+    private QueryCursor<?> cursor;
+    private RecordingSubscriber subscriber;
+
+    @BeforeAll
+    static void startNode() {
+        server = Ignition.start(new IgniteConfiguration()
+                .setIgniteInstanceName("change-feed-test")
+                .setLocalHost("127.0.0.1")
+                .setDiscoverySpi(new TcpDiscoverySpi()
+                        .setIpFinder(new TcpDiscoveryVmIpFinder().setAddresses(List.of("127.0.0.1:47500..47509"))))
+                .setCacheConfiguration(new CacheConfiguration<String, Route>(CACHE_NAME)
+                        .setIndexedTypes(String.class, Route.class)));
+    }
+
+    @AfterAll
+    static void stopNode() {
+        server.close();
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        IgniteCache<String, Route> serverCache = server.cache(CACHE_NAME);
+        serverCache.removeAll();
+        cache = mock(IgniteCache.class, delegatesTo(serverCache));
+        doAnswer(invocation -> cursor = mock(QueryCursor.class,
+                delegatesTo(serverCache.query(invocation.<ContinuousQuery<String, Route>>getArgument(0)))))
+                .when(cache).query(any(ContinuousQuery.class));
+        subscriber = new RecordingSubscriber();
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    void snapshotThenLiveEvents() throws InterruptedException {
+        cache.put(ROUTE.getId(), ROUTE);
+        subscribe(ChangeFeedOptions.<Route>builder().initialSnapshot(true).build());
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Route updated = ROUTE.toBuilder().duration(120).build();
+        cache.put(ROUTE.getId(), updated);
+
+        assertThat(subscriber.take(2))
+                .extracting(ChangeEvent::getType, ChangeEvent::getValue)
+                .containsExactly(
+                        tuple(ChangeEvent.Type.SNAPSHOT, ROUTE),
+                        tuple(ChangeEvent.Type.UPDATED, updated));
+    }
+
+    @Test
+    void deliversOnDemand() throws InterruptedException {
+        subscribe(ChangeFeedOptions.all());
+        subscriber.subscription.request(1);
+
+        cache.put("id1", ROUTE.toBuilder().id("id1").build());
+        cache.put("id2", ROUTE.toBuilder().id("id2").build());
+        cache.put("id3", ROUTE.toBuilder().id("id3").build());
+
+        List<ChangeEvent<String, Route>> received = subscriber.take(1);
+        assertThat(subscriber.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        subscriber.subscription.request(2);
+
+        received.addAll(subscriber.take(2));
+        assertThat(received).extracting(ChangeEvent::getKey).containsExactlyInAnyOrder("id1", "id2", "id3");
+    }
+
+    @Test
+    void failsOnOverflow() throws InterruptedException {
+        subscribe(ChangeFeedOptions.<Route>builder().bufferSize(2).build());
+
+        cache.put("id1", ROUTE.toBuilder().id("id1").build());
+        cache.put("id2", ROUTE.toBuilder().id("id2").build());
+        cache.put("id3", ROUTE.toBuilder().id("id3").build());
+
+        assertThat(subscriber.failed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.error).isInstanceOf(IllegalStateException.class);
+        assertThat(subscriber.events).isEmpty();
+    }
+
+    @Test
+    void cancelClosesContinuousQuery() throws InterruptedException {
+        subscribe(ChangeFeedOptions.all());
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        subscriber.subscription.cancel();
+        cache.put(ROUTE.getId(), ROUTE);
+
+        verify(cursor).close();
+        assertThat(subscriber.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsWhenSnapshotFails() throws InterruptedException {
+        IgniteCache<String, Route> serverCache = server.cache(CACHE_NAME);
+        doAnswer(invocation -> {
+            cursor = mock(QueryCursor.class,
+                    delegatesTo(serverCache.query(invocation.<ContinuousQuery<String, Route>>getArgument(0))));
+            doReturn(new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    throw new CacheException("Snapshot page fetch failed");
+                }
+
+                @Override
+                public Object next() {
+                    throw new NoSuchElementException();
+                }
+            }).when(cursor).iterator();
+            return cursor;
+        }).when(cache).query(any(ContinuousQuery.class));
+        cache.put(ROUTE.getId(), ROUTE);
+        subscribe(ChangeFeedOptions.<Route>builder().initialSnapshot(true).build());
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.failed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.error).isInstanceOf(CacheException.class);
+        verify(cursor, timeout(5000)).close();
+    }
+
+    @Test
+    void filtersOnServer() throws InterruptedException {
+        subscribe(ChangeFeedOptions.<Route>builder()
+                .filter(IgniteSqlQuery.<Route>builder()
+                        .clazz(Route.class)
+                        .minorOrEqual(List.of(Pair.of("duration", 60)))
+                        .build())
+                .build());
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        cache.put(ROUTE.getId(), ROUTE);
+        Route shortRoute = ROUTE.toBuilder().id("id1").destination("Ceuta").duration(60).build();
+        cache.put(shortRoute.getId(), shortRoute);
+
+        assertThat(subscriber.take(1)).containsExactly(
+                new ChangeEvent<>(ChangeEvent.Type.CREATED, shortRoute.getId(), shortRoute, null));
+        assertThat(subscriber.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    private void subscribe(ChangeFeedOptions<Route> options) {
+        new ChangeFeedPublisher<>(cache, options).subscribe(subscriber);
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<ChangeEvent<String, Route>> {
+        private final BlockingQueue<ChangeEvent<String, Route>> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch failed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ChangeEvent<String, Route> event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            failed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        private List<ChangeEvent<String, Route>> take(int count) throws InterruptedException {
+            List<ChangeEvent<String, Route>> taken = new ArrayList<>();
+            while (taken.size() < count) {
+                ChangeEvent<String, Route> event = events.poll(5, TimeUnit.SECONDS);
+                assertThat(event).as("event %d of %d", taken.size() + 1, count).isNotNull();
+                taken.add(event);
+            }
+            return taken;
+        }
+    }
+
+    @Data
+    @Builder(toBuilder = true)
+    private static class Route {
+        @Id
+        @QuerySqlField(index = true)
+        private final String id;
+        @QuerySqlField(index = true)
+        private final String origin;
+        @QuerySqlField(index = true)
+        private final String destination;
+        @QuerySqlField
+        private final Integer duration;
+    }
+}
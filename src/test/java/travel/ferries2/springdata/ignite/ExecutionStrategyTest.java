@@ -0,0 +1,138 @@
+package travel.ferries2.springdata.ignite;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExecutionStrategyTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void keepsOrderAndBoundsConcurrency() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> inputs = IntStream.range(0, 50).boxed().collect(toList());
+
+        List<Integer> result = ExecutionStrategy.concurrent(executor, 3, 10).map(inputs, input -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(5);
+            running.decrementAndGet();
+            return input * 2;
+        });
+
+        assertThat(result).isEqualTo(inputs.stream().map(input -> input * 2).collect(toList()));
+        assertThat(maxRunning.get()).isBetween(1, 3);
+    }
+
+    @Test
+    void chunks() {
+        Set<List<Integer>> chunks = ConcurrentHashMap.newKeySet();
+
+        ExecutionStrategy.concurrent(executor, 2, 4)
+                .forEachChunk(IntStream.range(0, 10).boxed().collect(toList()), chunks::add);
+
+        assertThat(chunks).containsExactlyInAnyOrder(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9));
+    }
+
+    @Test
+    void rethrowsTaskException() {
+        assertThrows(DuplicateKeyException.class, () -> ExecutionStrategy.concurrent(executor, 2, 1)
+                .map(List.of(1, 2, 3), input -> {
+                    throw new DuplicateKeyException("duplicated " + input);
+                }));
+    }
+
+    @Test
+    void stopsSubmittingAfterFailure() {
+        AtomicInteger started = new AtomicInteger();
+
+        assertThrows(DuplicateKeyException.class, () -> ExecutionStrategy.concurrent(executor, 1, 1)
+                .map(IntStream.range(0, 10).boxed().collect(toList()), input -> {
+                    started.incrementAndGet();
+                    throw new DuplicateKeyException("duplicated " + input);
+                }));
+
+        assertThat(started.get()).isEqualTo(1);
+    }
+
+    @Test
+    void waitsForRunningTasksBeforeRethrowing() {
+        AtomicBoolean finished = new AtomicBoolean();
+
+        assertThrows(DuplicateKeyException.class, () -> ExecutionStrategy.concurrent(executor, 2, 1)
+                .map(List.of(1, 2), input -> {
+                    if (input == 1) {
+                        throw new DuplicateKeyException("duplicated " + input);
+                    }
+                    sleep(200);
+                    finished.set(true);
+                    return input;
+                }));
+
+        assertThat(finished).isTrue();
+    }
+
+    @Test
+    void waitsForRunningTasksWhenInterrupted() {
+        Thread caller = Thread.currentThread();
+        AtomicBoolean finished = new AtomicBoolean();
+
+        assertThrows(IllegalStateException.class, () -> ExecutionStrategy.concurrent(executor, 1, 1)
+                .map(List.of(1, 2), input -> {
+                    caller.interrupt();
+                    sleep(200);
+                    finished.set(true);
+                    return input;
+                }));
+
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(finished).isTrue();
+    }
+
+    @Test
+    void callerThreadWithinTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        Thread caller = Thread.currentThread();
+
+        List<Boolean> onCaller = ExecutionStrategy.concurrent(executor, 4, 1)
+                .map(List.of(1, 2, 3), input -> Thread.currentThread() == caller);
+
+        assertThat(onCaller).containsOnly(true);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
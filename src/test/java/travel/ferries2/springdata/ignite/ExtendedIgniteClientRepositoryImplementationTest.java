@@ -0,0 +1,177 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Builder;
+import lombok.Data;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.query.annotations.QuerySqlField;
+import org.apache.ignite.cache.query.annotations.QueryTextField;
+import org.apache.ignite.client.IgniteClient;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.ClientConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.core.support.ReflectionEntityInformation;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExtendedIgniteClientRepositoryImplementationTest {
+    private static final String CACHE_NAME = "routes";
+    private static final Route ROUTE = Route.builder()
+            .id("id")
+            .origin("Algeciras")
+            .destination("Tanger")
+            .duration(90)
+            .build();
+
+    private static Ignite server;
+    private static IgniteClient client;
+
+    private ExtendedIgniteClientRepositoryImplementation<Route, String> repository;
+
+    @BeforeAll
+    static void startNodes() {
+        server = Ignition.start(new IgniteConfiguration()
+                .setIgniteInstanceName("thin-client-test")
+                .setLocalHost("127.0.0.1")
+                .setDiscoverySpi(new TcpDiscoverySpi()
+                        .setIpFinder(new TcpDiscoveryVmIpFinder().setAddresses(List.of("127.0.0.1:47500..47509"))))
+                .setCacheConfiguration(new CacheConfiguration<String, Route>(CACHE_NAME)
+                        .setIndexedTypes(String.class, Route.class)));
+        client = Ignition.startClient(new ClientConfiguration().setAddresses("127.0.0.1:10800"));
+    }
+
+    @AfterAll
+    static void stopNodes() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        client.cache(CACHE_NAME).removeAll();
+        repository = new ExtendedIgniteClientRepositoryImplementation<>(
+                client.<String, Route>cache(CACHE_NAME), new ReflectionEntityInformation<>(Route.class));
+    }
+
+    @Test
+    void save() {
+        repository.save(ROUTE);
+
+        assertThat(repository.findById(ROUTE.getId())).contains(ROUTE);
+    }
+
+    @Test
+    void replace() {
+        repository.save(ROUTE);
+
+        Route route = ROUTE.toBuilder().id(null).duration(120).build();
+        repository.save(route);
+
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.findById(ROUTE.getId())).contains(route.toBuilder().id(ROUTE.getId()).build());
+    }
+
+    @Test
+    void dataIntegrityViolationException() {
+        repository.save(ROUTE);
+
+        assertThrows(
+                DataIntegrityViolationException.class,
+                () -> repository.save(ROUTE.toBuilder().id("changedId").build()));
+    }
+
+    @Test
+    void saveAllCompositeUniqueViolation() {
+        assertThrows(
+                DuplicateKeyException.class,
+                () -> repository.saveAll(List.of(ROUTE, ROUTE.toBuilder().id("changed").build())));
+    }
+
+    @Test
+    void findByUniqueIdentifiers() {
+        repository.save(ROUTE);
+
+        assertThat(repository.findByUniqueIdentifiers(ROUTE.toBuilder().id(null).duration(null).build()))
+                .contains(ROUTE);
+    }
+
+    @Test
+    void delete() {
+        repository.save(ROUTE);
+
+        repository.delete(ROUTE.toBuilder().id(null).build());
+
+        assertThat(repository.existsById(ROUTE.getId())).isFalse();
+    }
+
+    @Test
+    void query() {
+        repository.saveAll(List.of(
+                ROUTE,
+                ROUTE.toBuilder().id("id1").destination("Ceuta").duration(60).build(),
+                ROUTE.toBuilder().id("id2").destination("Tarifa").duration(35).build()));
+
+        Page<Route> result = repository.query(IgniteSqlQuery.<Route>builder()
+                .clazz(Route.class)
+                .minorOrEqual(List.of(Pair.of("duration", 90)))
+                .pageable(PageRequest.of(1, 2, Sort.by("duration")))
+                .build());
+
+        assertThat(result.getContent()).extracting(Route::getDuration).containsExactly(90);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void fullTextRejected() {
+        assertThrows(
+                InvalidDataAccessApiUsageException.class,
+                () -> repository.query(IgniteSqlQuery.<Route>builder()
+                        .clazz(Route.class)
+                        .fullText("destination", "Tanger")
+                        .build()));
+    }
+
+    @Test
+    void findAll() {
+        repository.saveAll(List.of(ROUTE, ROUTE.toBuilder().id("id1").destination("Ceuta").build()));
+
+        Page<Route> result = repository.findAll(PageRequest.of(0, 1));
+
+        assertThat(result.getNumberOfElements()).isEqualTo(1);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Data
+    @Builder(toBuilder = true)
+    private static class Route {
+        @Id
+        @QuerySqlField(index = true)
+        private final String id;
+        @UniqueComposite(keyName = "route")
+        @QuerySqlField(index = true, groups = "route")
+        private final String origin;
+        @UniqueComposite(keyName = "route")
+        @QuerySqlField(index = true, groups = "route")
+        @QueryTextField
+        private final String destination;
+        @QuerySqlField
+        private final Integer duration;
+    }
+}
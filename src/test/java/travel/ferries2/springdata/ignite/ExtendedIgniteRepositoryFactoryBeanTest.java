@@ -0,0 +1,58 @@
+package travel.ferries2.springdata.ignite;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.client.IgniteClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.repository.Repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExtendedIgniteRepositoryFactoryBeanTest {
+    @Mock
+    ApplicationContext applicationContext;
+    @Mock
+    Ignite ignite;
+    @Mock
+    IgniteClient igniteClient;
+
+    private ExtendedIgniteRepositoryFactoryBean<EntityRepository, Object, String> factoryBean;
+
+    @BeforeEach
+    void setUp() {
+        when(applicationContext.getBeanNamesForType(QueryPlanGuard.class)).thenReturn(new String[0]);
+        when(applicationContext.getBeanNamesForType(ExecutionStrategy.class)).thenReturn(new String[0]);
+        factoryBean = new ExtendedIgniteRepositoryFactoryBean<>(EntityRepository.class);
+        factoryBean.setApplicationContext(applicationContext);
+    }
+
+    @Test
+    void thickClientWhenIgniteBeanExists() {
+        when(applicationContext.getBeanNamesForType(Ignite.class)).thenReturn(new String[]{"ignite"});
+        when(applicationContext.getBean(Ignite.class)).thenReturn(ignite);
+
+        assertThat(factoryBean.createRepositoryFactory()).isInstanceOf(ExtendedIgniteRepositoryFactory.class);
+        verify(applicationContext, never()).getBean(IgniteClient.class);
+    }
+
+    @Test
+    void thinClientWhenOnlyIgniteClientBeanExists() {
+        when(applicationContext.getBeanNamesForType(Ignite.class)).thenReturn(new String[0]);
+        when(applicationContext.getBeanNamesForType(IgniteClient.class)).thenReturn(new String[]{"igniteClient"});
+        when(applicationContext.getBean(IgniteClient.class)).thenReturn(igniteClient);
+
+        assertThat(factoryBean.createRepositoryFactory()).isInstanceOf(ExtendedIgniteClientRepositoryFactory.class);
+        verify(applicationContext, never()).getBean(Ignite.class);
+    }
+
+    interface EntityRepository extends Repository<Object, String> {
+    }
+}
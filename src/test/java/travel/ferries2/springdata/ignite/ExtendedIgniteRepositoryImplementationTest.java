@@ -3,14 +3,22 @@ package travel.ferries2.springdata.ignite;
 import lombok.Builder;
 import lombok.Data;
 import lombok.With;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteTransactions;
 import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.FieldsQueryCursor;
 import org.apache.ignite.cache.query.Query;
+import org.apache.ignite.cache.query.QueryCancelledException;
 import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
 import org.apache.ignite.cache.query.SqlQuery;
+import org.apache.ignite.cache.query.TextQuery;
 import org.apache.ignite.cache.query.annotations.QuerySqlField;
+import org.apache.ignite.cache.query.annotations.QueryTextField;
 import org.apache.ignite.internal.processors.cache.CacheEntryImpl;
+import org.apache.ignite.transactions.Transaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,13 +28,25 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.repository.core.EntityInformation;
 
 import javax.cache.Cache;
+import javax.cache.CacheException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -34,7 +54,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,16 +78,26 @@ class ExtendedIgniteRepositoryImplementationTest {
     @Mock
     Ignite ignite;
     @Mock
+    IgniteTransactions igniteTransactions;
+    @Mock
+    Transaction transaction;
+    @Mock
     IgniteCache<String, Entity> igniteCache;
     @Mock
     EntityInformation<Entity, String> entityInformation;
     @Mock
     QueryCursor<Cache.Entry<String, Entity>> queryCursor;
+    @Mock
+    FieldsQueryCursor<List<?>> fieldsQueryCursor;
 
     @Captor
     ArgumentCaptor<Entity> representationArgumentCaptor;
     @Captor
     ArgumentCaptor<SqlQuery<String, Entity>> queryArgumentCaptor;
+    @Captor
+    ArgumentCaptor<TextQuery<String, Entity>> textQueryArgumentCaptor;
+    @Captor
+    ArgumentCaptor<SqlFieldsQuery> fieldsQueryArgumentCaptor;
 
     private ExtendedIgniteRepositoryImplementation<Entity, String> extendedIgniteRepositoryImplementation;
 
@@ -75,8 +109,6 @@ class ExtendedIgniteRepositoryImplementationTest {
     }
 
     private void mockEntityInformation() {
-        when(entityInformation.getRequiredId(any()))
-                .thenAnswer(invocation -> invocation.getArgument(0, Entity.class).getId());
         when(entityInformation.getId(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0, Entity.class).getId());
     }
@@ -85,23 +117,29 @@ class ExtendedIgniteRepositoryImplementationTest {
         when(igniteCache.query(any(Query.class))).thenReturn(queryCursor);
     }
 
+    private void mockKeysQuery() {
+        when(igniteCache.query(any(SqlFieldsQuery.class))).thenReturn(fieldsQueryCursor);
+    }
+
     @Test
     void save() {
         when(entityInformation.getId(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0, Entity.class).getId());
-        mockQuery();
-        when(queryCursor.getAll()).thenReturn(List.of());
+        mockKeysQuery();
+        when(fieldsQueryCursor.getAll()).thenReturn(List.of());
 
         extendedIgniteRepositoryImplementation.save(ENTITY);
 
+        verify(igniteCache).query(fieldsQueryArgumentCaptor.capture());
         verify(igniteCache).put(ENTITY.getId(), ENTITY);
+        assertThat(fieldsQueryArgumentCaptor.getValue().getSql()).startsWith("SELECT _key FROM ").contains(" WHERE ");
     }
 
     @Test
     void replace() {
         mockEntityInformation();
-        mockQuery();
-        when(queryCursor.getAll()).thenReturn(List.of(new CacheEntryImpl<>(ENTITY.getId(), ENTITY)));
+        mockKeysQuery();
+        when(fieldsQueryCursor.getAll()).thenReturn(List.of(List.of(ENTITY.getId())));
 
         Entity entity = ENTITY.toBuilder().id(null).field1("changed").build();
         extendedIgniteRepositoryImplementation.save(entity);
@@ -115,8 +153,8 @@ class ExtendedIgniteRepositoryImplementationTest {
     @Test
     void dataIntegrityViolationException() {
         mockEntityInformation();
-        mockQuery();
-        when(queryCursor.getAll()).thenReturn(List.of(new CacheEntryImpl<>(ENTITY.getId(), ENTITY)));
+        mockKeysQuery();
+        when(fieldsQueryCursor.getAll()).thenReturn(List.of(List.of(ENTITY.getId())));
 
         Entity entity = ENTITY.toBuilder().id("changedId").field1("changed").build();
         assertThrows(
@@ -128,7 +166,7 @@ class ExtendedIgniteRepositoryImplementationTest {
     void saveAll() {
         when(entityInformation.getRequiredId(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0, Entity.class).getId());
-        mockQuery();
+        mockKeysQuery();
 
         extendedIgniteRepositoryImplementation.saveAll(
                 List.of(ENTITY, ENTITY.toBuilder()
@@ -142,6 +180,69 @@ class ExtendedIgniteRepositoryImplementationTest {
         verify(igniteCache).putAll(anyMap());
     }
 
+    @Test
+    void saveAllConcurrently() {
+        when(entityInformation.getRequiredId(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, Entity.class).getId());
+        mockKeysQuery();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Map<String, Entity>> chunks = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread());
+            chunks.add(invocation.getArgument(0));
+            return null;
+        }).when(igniteCache).putAll(anyMap());
+
+        withExecutor(executor -> {
+            extendedIgniteRepositoryImplementation.setExecutionStrategy(ExecutionStrategy.concurrent(executor, 2, 2));
+            extendedIgniteRepositoryImplementation.saveAll(distinctEntities(5));
+        });
+
+        verify(igniteCache, times(5)).query(any(SqlFieldsQuery.class));
+        assertThat(chunks).extracting(Map::size).containsExactlyInAnyOrder(2, 2, 1);
+        assertThat(threads).doesNotContain(Thread.currentThread());
+    }
+
+    @Test
+    void saveAllSequentialWithinIgniteTransaction() {
+        when(entityInformation.getRequiredId(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, Entity.class).getId());
+        mockKeysQuery();
+        when(igniteCache.unwrap(Ignite.class)).thenReturn(ignite);
+        when(ignite.transactions()).thenReturn(igniteTransactions);
+        when(igniteTransactions.tx()).thenReturn(transaction);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> threads.add(Thread.currentThread())).when(igniteCache).putAll(anyMap());
+
+        withExecutor(executor -> {
+            extendedIgniteRepositoryImplementation.setExecutionStrategy(ExecutionStrategy.concurrent(executor, 2, 2));
+            extendedIgniteRepositoryImplementation.saveAll(distinctEntities(5));
+        });
+
+        assertThat(threads).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    void deleteAllConcurrently() {
+        when(entityInformation.getRequiredId(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, Entity.class).getId());
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Set<String>> chunks = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread());
+            chunks.add(invocation.getArgument(0));
+            return null;
+        }).when(igniteCache).removeAll(anySet());
+
+        withExecutor(executor -> {
+            extendedIgniteRepositoryImplementation.setExecutionStrategy(ExecutionStrategy.concurrent(executor, 2, 2));
+            extendedIgniteRepositoryImplementation.deleteAll(distinctEntities(5));
+        });
+
+        assertThat(chunks).extracting(Set::size).containsExactlyInAnyOrder(2, 2, 1);
+        assertThat(threads).doesNotContain(Thread.currentThread());
+    }
+
     @Test
     void saveAllUniqueViolation() {
         when(entityInformation.getRequiredId(any()))
@@ -172,7 +273,7 @@ class ExtendedIgniteRepositoryImplementationTest {
     @Test
     void delete() {
         mockEntityInformation();
-        when(igniteCache.get(ENTITY.getId())).thenReturn(ENTITY);
+        when(igniteCache.containsKey(ENTITY.getId())).thenReturn(true);
 
         extendedIgniteRepositoryImplementation.delete(ENTITY);
 
@@ -198,6 +299,117 @@ class ExtendedIgniteRepositoryImplementationTest {
         assertThat(result.getNumberOfElements()).isEqualTo(100);
     }
 
+    @Test
+    void queryTimeout() {
+        mockQuery();
+        when(queryCursor.getAll()).thenThrow(new CacheException(new QueryCancelledException()));
+
+        assertThrows(
+                QueryTimeoutException.class,
+                () -> extendedIgniteRepositoryImplementation.query(
+                        IgniteSqlQuery.<Entity>builder().clazz(Entity.class).build(),
+                        QueryCancellation.withTimeout(Duration.ofMinutes(1))));
+
+        verify(igniteCache).query(queryArgumentCaptor.capture());
+        verify(queryCursor).close();
+        assertThat(queryArgumentCaptor.getValue().getTimeout()).isPositive();
+    }
+
+    @Test
+    void queryCancelledElsewhere() {
+        mockQuery();
+        when(queryCursor.getAll()).thenThrow(new CacheException(new QueryCancelledException()));
+
+        assertThrows(
+                CacheException.class,
+                () -> extendedIgniteRepositoryImplementation.query(
+                        IgniteSqlQuery.<Entity>builder().clazz(Entity.class).build(),
+                        QueryCancellation.none()));
+    }
+
+    @Test
+    void changesRejectFullTextFilter() {
+        assertThrows(
+                InvalidDataAccessApiUsageException.class,
+                () -> extendedIgniteRepositoryImplementation.changes(ChangeFeedOptions.<Entity>builder()
+                        .filter(IgniteSqlQuery.<Entity>builder().clazz(Entity.class).fullText("field1", "f1").build())
+                        .build()));
+    }
+
+    @Test
+    void fullText() {
+        mockQuery();
+        when(queryCursor.iterator()).thenReturn(IntStream.range(0, 10)
+                .mapToObj(i -> ENTITY.withId(String.valueOf(i)).withField0(i))
+                .<Cache.Entry<String, Entity>>map(r -> new CacheEntryImpl<>(r.getId(), r))
+                .iterator());
+
+        Page<Entity> result = extendedIgniteRepositoryImplementation.query(IgniteSqlQuery.<Entity>builder()
+                .clazz(Entity.class)
+                .fullText("field1", "f1")
+                .mayorOrEqual(List.of(Pair.of("field0", 2)))
+                .pageable(PageRequest.of(1, 3))
+                .build());
+
+        verify(igniteCache).query(textQueryArgumentCaptor.capture());
+        assertThat(textQueryArgumentCaptor.getValue().getText()).isEqualTo("field1:(f1)");
+        assertThat(result.getContent()).extracting(Entity::getField0).containsExactly(5, 6, 7);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.getTotalElements()).isEqualTo(7);
+    }
+
+    @Test
+    void fullTextLastPage() {
+        mockQuery();
+        when(queryCursor.iterator()).thenReturn(IntStream.range(0, 10)
+                .mapToObj(i -> ENTITY.withId(String.valueOf(i)).withField0(i))
+                .<Cache.Entry<String, Entity>>map(r -> new CacheEntryImpl<>(r.getId(), r))
+                .iterator());
+
+        Page<Entity> result = extendedIgniteRepositoryImplementation.query(IgniteSqlQuery.<Entity>builder()
+                .clazz(Entity.class)
+                .fullText("field1", "f1")
+                .mayorOrEqual(List.of(Pair.of("field0", 2)))
+                .pageable(PageRequest.of(2, 3))
+                .build());
+
+        assertThat(result.getContent()).extracting(Entity::getField0).containsExactly(8, 9);
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.getTotalElements()).isEqualTo(8);
+    }
+
+    @Test
+    void queryCancelled() {
+        QueryCancellation cancellation = QueryCancellation.none();
+        cancellation.cancel();
+
+        assertThrows(
+                CancellationException.class,
+                () -> extendedIgniteRepositoryImplementation.findAll(PageRequest.of(0, 100), cancellation));
+
+        verify(igniteCache, never()).query(any(Query.class));
+    }
+
+    private static List<Entity> distinctEntities(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> ENTITY.toBuilder()
+                        .id("id" + i)
+                        .unique0("u0" + i)
+                        .unique1("u1" + i)
+                        .compositeUnique02("c02" + i)
+                        .compositeUnique12("c12" + i)
+                        .build())
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    private static void withExecutor(Consumer<ExecutorService> test) {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            test.accept(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
     @Data
     @With
@@ -206,6 +418,7 @@ class ExtendedIgniteRepositoryImplementationTest {
         @Id
         private final String id;
         private final Integer field0;
+        @QueryTextField
         private final String field1;
         @Unique
         private final String unique0;
@@ -0,0 +1,63 @@
+package travel.ferries2.springdata.ignite;
+
+import lombok.Value;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static travel.ferries2.springdata.ignite.IgniteSqlQuery.JoinOperator.OR;
+
+class IgniteSqlQueryPredicateTest {
+    private static final Route ROUTE = new Route("Algeciras", "Tanger Med", 90L);
+
+    @ParameterizedTest
+    @CsvSource({"Tanger Med, true", "Tanger%, true", "%Med, true", "Tanger_Med, true", "Tanger, false", "%ceuta%, false"})
+    void like(String pattern, boolean expected) {
+        assertThat(new IgniteSqlQueryPredicate<>(IgniteSqlQuery.<Route>builder()
+                .clazz(Route.class)
+                .like(List.of(Pair.of("destination", pattern)))
+                .build()).test(ROUTE))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void and() {
+        assertThat(new IgniteSqlQueryPredicate<>(IgniteSqlQuery.<Route>builder()
+                .clazz(Route.class)
+                .likeAndGroups(List.of(List.of(Pair.of("origin", "Algeciras"), Pair.of("destination", null))))
+                .mayorOrEqual(List.of(Pair.of("duration", 60)))
+                .build()).test(ROUTE))
+                .isFalse();
+    }
+
+    @Test
+    void or() {
+        assertThat(new IgniteSqlQueryPredicate<>(IgniteSqlQuery.<Route>builder()
+                .clazz(Route.class)
+                .minorOrEqual(List.of(Pair.of("duration", 60)))
+                .like(List.of(Pair.of("origin", "Alg%")))
+                .joinOperator(OR)
+                .build()).test(ROUTE))
+                .isTrue();
+    }
+
+    @Test
+    void nullValues() {
+        assertThat(new IgniteSqlQueryPredicate<>(IgniteSqlQuery.<Route>builder()
+                .clazz(Route.class)
+                .mayorOrEqual(List.of(Pair.of("duration", 60)))
+                .build()).test(new Route("Algeciras", "Ceuta", null)))
+                .isFalse();
+    }
+
+    @Value
+    private static class Route {
+        String origin;
+        String destination;
+        Long duration;
+    }
+}
@@ -3,16 +3,19 @@ package travel.ferries2.springdata.ignite;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.ignite.cache.query.SqlFieldsQuery;
 import org.apache.ignite.cache.query.SqlQuery;
+import org.apache.ignite.cache.query.annotations.QueryTextField;
 import org.assertj.core.api.Condition;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static travel.ferries2.springdata.ignite.IgniteSqlQuery.JoinOperator.OR;
 
 class IgniteSqlQueryTest {
@@ -29,12 +32,37 @@ class IgniteSqlQueryTest {
                 .isEqualTo(arguments);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"field1 LIKE ? LIMIT 100 OFFSET 0", " ORDER BY field1 LIMIT 100 OFFSET 0"})
+    void convertToExplain(String sql) {
+        assertThat(IgniteSqlQuery.convertToExplain(new SqlQuery<String, Object>(Object.class, sql)).getSql())
+                .isEqualToNormalizingWhitespace("EXPLAIN SELECT _key, _val FROM Object "
+                        + (sql.startsWith("field1") ? "WHERE " : "") + sql);
+    }
+
     @Test
     void pagination() {
         assertThat(IgniteSqlQuery.pagination(Object.class, PageRequest.of(1, 100, Sort.by("field1").descending()))
                 .getSql()).isEqualToIgnoringCase(" ORDER BY field1 DESC LIMIT 100 OFFSET 100");
     }
 
+    @Test
+    void fullTextNotIndexed() {
+        assertThrows(
+                InvalidDataAccessApiUsageException.class,
+                () -> IgniteSqlQuery.builder().clazz(Object.class).fullText("field1", "ferry").build());
+    }
+
+    @Test
+    void fullTextEscaped() {
+        assertThat(IgniteSqlQuery.<Ferry>builder().clazz(Ferry.class)
+                .fullText("description", "fast) OR origin:(Tarifa*")
+                .build()
+                .toTextQuery()
+                .getText())
+                .isEqualTo("description:(fast\\) or origin\\:\\(Tarifa\\*)");
+    }
+
     @Test
     void query() {
         SqlQuery<String, Object> sqlQuery = IgniteSqlQuery.builder().clazz(Object.class)
@@ -56,4 +84,9 @@ class IgniteSqlQueryTest {
         assertThat(sqlQuery.getArgs()).containsExactly(1, 2, 3, "value1");
 
     }
-}
\ No newline at end of file
+
+    private static class Ferry {
+        @QueryTextField
+        private String description;
+    }
+}
@@ -0,0 +1,96 @@
+package travel.ferries2.springdata.ignite;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryPlanGuardTest {
+    private static final String SCAN_PLAN = "SELECT\n" +
+            "    __Z0._KEY AS __C0_0\n" +
+            "FROM \"routes\".ROUTE __Z0\n" +
+            "    /* \"routes\".ROUTE.__SCAN_ */\n" +
+            "WHERE __Z0.DURATION <= ?1\n" +
+            "SELECT\n" +
+            "    __C0_0 AS _KEY\n" +
+            "FROM PUBLIC.__T0\n" +
+            "    /* \"routes\".\"merge_scan\" */";
+    private static final String INDEX_PLAN = "SELECT\n" +
+            "    __Z0._KEY AS __C0_0\n" +
+            "FROM \"routes\".ROUTE __Z0\n" +
+            "    /* \"routes\".ROUTE_ORIGIN_DESTINATION_IDX: ORIGIN = ?1 AND DESTINATION = ?2 */\n" +
+            "WHERE (__Z0.ORIGIN = ?1) AND (__Z0.DESTINATION = ?2)";
+
+    @Test
+    void parseScan() {
+        QueryPlan plan = QueryPlan.parse(SCAN_PLAN);
+
+        assertThat(plan.isFullScan()).isTrue();
+        assertThat(plan.getScannedTables()).containsExactly("\"routes\".ROUTE");
+        assertThat(plan.getIndexes()).isEmpty();
+    }
+
+    @Test
+    void parseIndex() {
+        QueryPlan plan = QueryPlan.parse(INDEX_PLAN);
+
+        assertThat(plan.isFullScan()).isFalse();
+        assertThat(plan.getIndexes()).containsExactly("\"routes\".ROUTE_ORIGIN_DESTINATION_IDX");
+    }
+
+    @Test
+    void failOnScanOfLargeTable() {
+        QueryPlanGuard guard = QueryPlanGuard.builder().mode(QueryPlanGuard.Mode.FAIL).maxScannedTableSize(10).build();
+        AtomicInteger explained = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(
+                    InvalidDataAccessResourceUsageException.class,
+                    () -> guard.check("Route:duration <= ?", () -> {
+                        explained.incrementAndGet();
+                        return QueryPlan.parse(SCAN_PLAN);
+                    }, () -> 100));
+        }
+        assertThat(explained).hasValue(1);
+    }
+
+    @Test
+    void allowScanOfSmallTable() {
+        QueryPlanGuard guard = QueryPlanGuard.builder().mode(QueryPlanGuard.Mode.FAIL).maxScannedTableSize(10).build();
+
+        assertDoesNotThrow(() -> guard.check("Route:duration <= ?", () -> QueryPlan.parse(SCAN_PLAN), () -> 5));
+    }
+
+    @Test
+    void failOnceTableGrows() {
+        QueryPlanGuard guard = QueryPlanGuard.builder().mode(QueryPlanGuard.Mode.FAIL).maxScannedTableSize(10).build();
+        AtomicInteger explained = new AtomicInteger();
+        AtomicLong tableSize = new AtomicLong(5);
+
+        assertDoesNotThrow(() -> guard.check("Route:duration <= ?", () -> {
+            explained.incrementAndGet();
+            return QueryPlan.parse(SCAN_PLAN);
+        }, tableSize::get));
+        tableSize.set(100);
+
+        assertThrows(
+                InvalidDataAccessResourceUsageException.class,
+                () -> guard.check("Route:duration <= ?", () -> {
+                    explained.incrementAndGet();
+                    return QueryPlan.parse(SCAN_PLAN);
+                }, tableSize::get));
+        assertThat(explained).hasValue(1);
+    }
+
+    @Test
+    void disabled() {
+        assertDoesNotThrow(() -> QueryPlanGuard.disabled().check("Route:duration <= ?", () -> {
+            throw new AssertionError("Plan must not be requested");
+        }, () -> 100));
+    }
+}